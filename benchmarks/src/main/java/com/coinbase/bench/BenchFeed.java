@@ -0,0 +1,144 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.coinbase.ProductScale;
+
+/**
+ * l2_data traffic for the benchmarks: a snapshot plus a cyclic stream of
+ * update messages, either synthetic or replayed from a recording.
+ *
+ * Synthetic books sit around 2500.00 with depth levels per side. With mix
+ * TOUCH most changes land in the top 10 levels, as on a live ETH-USD feed;
+ * with UNIFORM they land anywhere in the book. A recording is a text file
+ * with one raw websocket message per line; its first snapshot is used as the
+ * snapshot and every l2_data update after it is replayed.
+ */
+final class BenchFeed {
+
+    enum Mix { TOUCH, UNIFORM }
+
+    static final String PRODUCT_ID = "ETH-USD";
+    static final ProductScale SCALE = ProductScale.of(2, 8);
+    static final int BATCH = 64;
+
+    private static final long MID_TICKS = 250_000L;
+    private static final int MESSAGES = 1 << 14;
+    private static final double DELETE_RATIO = 0.3;
+
+    final String snapshot;
+    private final String[] updates;
+    private final List<List<String>> batches = new ArrayList<>();
+    private int next;
+    private int nextBatch;
+
+    private BenchFeed(String snapshot, List<String> updates) {
+        this.snapshot = snapshot;
+        this.updates = updates.toArray(new String[0]);
+        for (int i = 0; i + BATCH <= updates.size(); i += BATCH) {
+            batches.add(List.copyOf(updates.subList(i, i + BATCH)));
+        }
+    }
+
+    /** recording is a file path, or "none" for a synthetic feed. */
+    static BenchFeed load(String recording, int depth, Mix mix) throws IOException {
+        if (recording == null || recording.isEmpty() || "none".equals(recording)) {
+            return synthetic(depth, mix, 1, 42L);
+        }
+        return recorded(Path.of(recording));
+    }
+
+    static BenchFeed synthetic(int depth, Mix mix, int levelsPerUpdate, long seed) {
+        Random rnd = new Random(seed);
+        long seq = 0;
+
+        StringBuilder levels = new StringBuilder();
+        for (int k = 0; k < depth; k++) {
+            appendLevel(levels, true, MID_TICKS - 1 - k, 1 + rnd.nextInt(10_000));
+            appendLevel(levels, false, MID_TICKS + 1 + k, 1 + rnd.nextInt(10_000));
+        }
+        String snapshot = message("snapshot", seq++, levels);
+
+        List<String> updates = new ArrayList<>(MESSAGES);
+        for (int m = 0; m < MESSAGES; m++) {
+            levels.setLength(0);
+            for (int l = 0; l < levelsPerUpdate; l++) {
+                boolean bid = rnd.nextBoolean();
+                int rank = mix == Mix.TOUCH && rnd.nextInt(10) < 8
+                        ? rnd.nextInt(Math.min(10, depth))
+                        : rnd.nextInt(depth);
+                long px = bid ? MID_TICKS - 1 - rank : MID_TICKS + 1 + rank;
+                long lots = rnd.nextDouble() < DELETE_RATIO ? 0 : 1 + rnd.nextInt(10_000);
+                appendLevel(levels, bid, px, lots);
+            }
+            updates.add(message("update", seq++, levels));
+        }
+        return new BenchFeed(snapshot, updates);
+    }
+
+    static BenchFeed recorded(Path file) throws IOException {
+        String snapshot = null;
+        List<String> updates = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (!line.contains("\"l2_data\"")) continue;
+            if (snapshot == null) {
+                if (line.contains("\"snapshot\"")) snapshot = line;
+            } else {
+                updates.add(line);
+            }
+        }
+        if (snapshot == null || updates.size() < BATCH) {
+            throw new IOException("Recording needs a snapshot and at least " + BATCH + " updates: " + file);
+        }
+        return new BenchFeed(snapshot, updates);
+    }
+
+    String nextUpdate() {
+        String msg = updates[next];
+        next = next + 1 == updates.length ? 0 : next + 1;
+        return msg;
+    }
+
+    List<String> nextBatch() {
+        List<String> batch = batches.get(nextBatch);
+        nextBatch = nextBatch + 1 == batches.size() ? 0 : nextBatch + 1;
+        return batch;
+    }
+
+    private static String message(String type, long seq, CharSequence levels) {
+        return "{\"channel\":\"l2_data\",\"timestamp\":\"2025-01-01T00:00:00.000000Z\",\"sequence_num\":" + seq
+                + ",\"events\":[{\"type\":\"" + type + "\",\"product_id\":\"" + PRODUCT_ID
+                + "\",\"updates\":[" + levels + "]}]}";
+    }
+
+    private static void appendLevel(StringBuilder out, boolean bid, long pxTicks, long qtyUnits) {
+        if (out.length() > 0) out.append(',');
+        out.append("{\"side\":\"").append(bid ? "bid" : "offer")
+                .append("\",\"event_time\":\"2025-01-01T00:00:00.000000Z\",\"px\":\"")
+                .append(pxTicks / 100).append('.');
+        long cents = pxTicks % 100;
+        if (cents < 10) out.append('0');
+        out.append(cents).append("\",\"qty\":\"")
+                .append(qtyUnits / 1000).append('.').append(String.format("%03d", qtyUnits % 1000))
+                .append("\"}");
+    }
+}
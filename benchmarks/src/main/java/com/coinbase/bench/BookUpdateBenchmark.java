@@ -0,0 +1,86 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.coinbase.BookView;
+import com.coinbase.OrderBookProcessor;
+
+/**
+ * Incremental update cost on a warm book, one message at a time and in
+ * batches of 64 as the applier thread drains them from the frame ring.
+ *
+ * SampleTime reports p50/p99/p99.9 per message; run with -prof gc for the
+ * allocation rate per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookUpdateBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    int depth;
+
+    @Param({"TOUCH", "UNIFORM"})
+    String mix;
+
+    @Param({"fixed", "decimal"})
+    String mode;
+
+    /** Path of a recorded feed to replay instead of the synthetic one. */
+    @Param({"none"})
+    String recording;
+
+    private BenchFeed feed;
+    private OrderBookProcessor book;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        feed = BenchFeed.load(recording, depth, BenchFeed.Mix.valueOf(mix));
+        book = new OrderBookProcessor(feed.snapshot, "fixed".equals(mode) ? BenchFeed.SCALE : null);
+    }
+
+    @Benchmark
+    public BookView applyMessage() throws IOException {
+        book.applyMessage(feed.nextUpdate());
+        return book.getView();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchFeed.BATCH)
+    public BookView applyBatch() throws IOException {
+        book.applyMessages(feed.nextBatch());
+        return book.getView();
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.coinbase.AsyncCaptureWriter;
+import com.coinbase.BookCaptureWriter;
+import com.coinbase.BookView;
+import com.coinbase.OrderBookProcessor;
+
+/**
+ * Cost on the caller's thread of capturing one top-10 row: writing it with
+ * the binary capture writer directly, against handing it to
+ * AsyncCaptureWriter, whose own thread does the write.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    private static final long MAX_FILE_BYTES = 64L * 1024 * 1024;
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final long SYNC_MILLIS = 1000L;
+
+    @Param({"false", "true"})
+    boolean memoryMapped;
+
+    private Path dir;
+    private BookView view;
+    private BookCaptureWriter writer;
+    private AsyncCaptureWriter async;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchFeed feed = BenchFeed.synthetic(1000, BenchFeed.Mix.TOUCH, 1, 42L);
+        OrderBookProcessor book = new OrderBookProcessor(feed.snapshot, BenchFeed.SCALE);
+        view = book.getView();
+
+        dir = Files.createTempDirectory("ob-bench");
+        writer = new BookCaptureWriter(dir.resolve("direct"), BenchFeed.PRODUCT_ID, BenchFeed.SCALE,
+                MAX_FILE_BYTES, 0L, memoryMapped);
+        async = new AsyncCaptureWriter(
+                new BookCaptureWriter(dir.resolve("async"), BenchFeed.PRODUCT_ID, BenchFeed.SCALE,
+                        MAX_FILE_BYTES, 0L, memoryMapped),
+                QUEUE_CAPACITY, AsyncCaptureWriter.Overflow.BLOCK, SYNC_MILLIS, false);
+        async.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        writer.close();
+        async.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long binaryRecord() throws IOException {
+        writer.capture(view, "bench-order");
+        return writer.getRecordsWritten();
+    }
+
+    @Benchmark
+    public boolean asyncSubmit() throws InterruptedException {
+        return async.submit(view, "bench-order");
+    }
+}
@@ -0,0 +1,96 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase.bench;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.coinbase.L2StreamDecoder;
+import com.coinbase.ProductScale;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Message parsing alone: the streaming decoder against a Jackson tree walk,
+ * which is what the processor did before the decoder existed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1", "10", "50"})
+    int levelsPerUpdate;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ProductScale SCALE = BenchFeed.SCALE;
+
+    private BenchFeed feed;
+    private final L2StreamDecoder decoder = new L2StreamDecoder();
+    private L2StreamDecoder.Handler handler;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+        feed = BenchFeed.synthetic(1000, BenchFeed.Mix.TOUCH, levelsPerUpdate, 42L);
+        handler = new L2StreamDecoder.Handler() {
+            @Override
+            public boolean onEvent(boolean snapshot, CharSequence productId) {
+                return true;
+            }
+
+            @Override
+            public void onLevel(boolean bid, CharSequence px, CharSequence qty) {
+                bh.consume(bid);
+                bh.consume(SCALE.parsePrice(px));
+                bh.consume(SCALE.parseSize(qty));
+            }
+        };
+    }
+
+    @Benchmark
+    public boolean streamDecode() throws IOException {
+        return decoder.decode(feed.nextUpdate(), handler);
+    }
+
+    @Benchmark
+    public void treeDecode(Blackhole bh) throws IOException {
+        JsonNode root = MAPPER.readTree(feed.nextUpdate());
+        for (JsonNode event : root.path("events")) {
+            for (JsonNode update : event.path("updates")) {
+                bh.consume("bid".equalsIgnoreCase(update.path("side").asText()));
+                bh.consume(new BigDecimal(update.path("px").asText()));
+                bh.consume(new BigDecimal(update.path("qty").asText()));
+            }
+        }
+    }
+}
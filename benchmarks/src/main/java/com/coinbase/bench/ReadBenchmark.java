@@ -0,0 +1,109 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase.bench;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.coinbase.BookView;
+import com.coinbase.OrderBookProcessor;
+
+/**
+ * Reader-side cost of the published view, alone and while a feed thread
+ * keeps applying updates to the same book.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"1000"})
+    int depth;
+
+    @Param({"fixed", "decimal"})
+    String mode;
+
+    private BenchFeed feed;
+    private OrderBookProcessor book;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        feed = BenchFeed.synthetic(depth, BenchFeed.Mix.TOUCH, 1, 42L);
+        book = new OrderBookProcessor(feed.snapshot, "fixed".equals(mode) ? BenchFeed.SCALE : null);
+    }
+
+    @Benchmark
+    @Group("idle")
+    public List<OrderBookProcessor.Level> topBids() {
+        return book.getTopBids(10);
+    }
+
+    @Benchmark
+    @Group("idle_mid")
+    public BigDecimal midPrice() {
+        return book.getMidPrice();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public BookView writer() throws IOException {
+        book.applyMessage(feed.nextUpdate());
+        return book.getView();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public List<OrderBookProcessor.Level> reader() {
+        return book.getView().getTopBids();
+    }
+
+    @Benchmark
+    @Group("contended_deep")
+    @GroupThreads(1)
+    public BookView deepWriter() throws IOException {
+        book.applyMessage(feed.nextUpdate());
+        return book.getView();
+    }
+
+    /** Deeper than the view, so each read takes the book lock. */
+    @Benchmark
+    @Group("contended_deep")
+    @GroupThreads(3)
+    public List<OrderBookProcessor.Level> deepReader() {
+        return book.getTopBids(50);
+    }
+}
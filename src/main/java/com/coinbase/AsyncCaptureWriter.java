@@ -0,0 +1,288 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves BookCaptureWriter I/O off the caller's thread.
+ *
+ * submit only enqueues an immutable BookView; a background thread drains
+ * whatever has queued up, writes it as one group, flushes, and fsyncs every
+ * syncIntervalMillis. When the queue is full the Overflow policy decides:
+ * BLOCK waits for room, DROP discards the new row, and SPILL writes it on the
+ * caller's thread to a separate spill writer, ideally a memory-mapped one, so
+ * nothing is lost and the queue never grows past capacity. On close the queue
+ * is either written out or discarded, depending on flushOnShutdown.
+ */
+public class AsyncCaptureWriter implements Closeable {
+
+    public enum Overflow { BLOCK, DROP, SPILL }
+
+    private static final int MAX_GROUP = 256;
+
+    private static final class Entry {
+        final BookView view;
+        final String orderId;
+
+        Entry(BookView view, String orderId) {
+            this.view = view;
+            this.orderId = orderId;
+        }
+    }
+
+    private final BookCaptureWriter writer;
+    private final BookCaptureWriter spillWriter;
+    private final int capacity;
+    private final Overflow overflow;
+    private final long syncIntervalMillis;
+    private final boolean flushOnShutdown;
+
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final Entry[] group = new Entry[MAX_GROUP];
+
+    private volatile boolean running;
+    private volatile long written;
+    private volatile long dropped;
+    private volatile long spilled;
+    private Thread thread;
+
+    public AsyncCaptureWriter(BookCaptureWriter writer,
+                              int capacity,
+                              Overflow overflow,
+                              long syncIntervalMillis,
+                              boolean flushOnShutdown) {
+        this(writer, capacity, overflow, syncIntervalMillis, flushOnShutdown, null);
+    }
+
+    /**
+     * @param spillWriter  takes the rows that overflow the queue under SPILL; required for
+     *                     SPILL and ignored otherwise. Closed along with this writer.
+     */
+    public AsyncCaptureWriter(BookCaptureWriter writer,
+                              int capacity,
+                              Overflow overflow,
+                              long syncIntervalMillis,
+                              boolean flushOnShutdown,
+                              BookCaptureWriter spillWriter) {
+        if (capacity < 1 || syncIntervalMillis < 1) {
+            throw new IllegalArgumentException("capacity and syncIntervalMillis must be positive");
+        }
+        if (overflow == Overflow.SPILL && spillWriter == null) {
+            throw new IllegalArgumentException("SPILL needs a spillWriter");
+        }
+        this.writer = writer;
+        this.spillWriter = overflow == Overflow.SPILL ? spillWriter : null;
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.flushOnShutdown = flushOnShutdown;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::writeLoop, "capture-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean submit(BookView view) throws InterruptedException {
+        return submit(view, null);
+    }
+
+    /** @return false if the row was dropped by the DROP policy or because the writer is closed */
+    public boolean submit(BookView view, String orderId) throws InterruptedException {
+        Entry entry = new Entry(view, orderId);
+        lock.lock();
+        try {
+            while (queue.size() >= capacity && running) {
+                if (overflow == Overflow.DROP) {
+                    dropped++;
+                    return false;
+                }
+                if (overflow == Overflow.SPILL) {
+                    break;
+                }
+                notFull.await();
+            }
+            if (!running) {
+                dropped++;
+                return false;
+            }
+            if (queue.size() < capacity) {
+                queue.addLast(entry);
+                notEmpty.signal();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return spill(entry);
+    }
+
+    /** Writes an overflowing row straight to the spill writer, outside the queue lock. */
+    private boolean spill(Entry entry) {
+        synchronized (spillWriter) {
+            if (running) {
+                try {
+                    spillWriter.capture(entry.view, entry.orderId);
+                    spilled++;
+                    return true;
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Failed to spill capture: " + e.getMessage());
+                }
+            }
+        }
+        lock.lock();
+        try {
+            dropped++;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /** Rows written to the spill writer because the queue was full. */
+    public long getSpilled() {
+        return spilled;
+    }
+
+    /** Stops accepting rows, writes or discards the backlog, syncs and closes the file. */
+    @Override
+    public void close() throws IOException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            writer.close();
+        } finally {
+            if (spillWriter != null) {
+                synchronized (spillWriter) {
+                    spillWriter.close();
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        long lastSync = System.currentTimeMillis();
+        while (true) {
+            int n = take(lastSync);
+            if (n < 0) break;
+
+            try {
+                for (int i = 0; i < n; i++) {
+                    writer.capture(group[i].view, group[i].orderId);
+                    group[i] = null;
+                }
+                writer.flush();
+                written += n;
+
+                long now = System.currentTimeMillis();
+                if (now - lastSync >= syncIntervalMillis) {
+                    writer.sync();
+                    lastSync = now;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to write capture: " + e.getMessage());
+            }
+        }
+
+        try {
+            writer.sync();
+        } catch (IOException e) {
+            System.err.println("Failed to sync capture: " + e.getMessage());
+        }
+    }
+
+    /** Fills group with up to MAX_GROUP queued rows; -1 once closed with nothing left to write. */
+    private int take(long lastSync) {
+        lock.lock();
+        try {
+            while (queue.isEmpty() && running) {
+                long wait = syncIntervalMillis - (System.currentTimeMillis() - lastSync);
+                if (wait <= 0) {
+                    return 0;  // idle, but let the caller sync what it wrote
+                }
+                try {
+                    notEmpty.await(wait, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+            if (!running && !flushOnShutdown) {
+                dropped += queue.size();
+                queue.clear();
+            }
+            if (queue.isEmpty()) {
+                return running ? 0 : -1;
+            }
+
+            int n = 0;
+            while (n < MAX_GROUP && !queue.isEmpty()) {
+                group[n++] = queue.pollFirst();
+            }
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -16,9 +16,11 @@ package com.coinbase;
 
 import java.time.Instant;
 import java.util.Base64;
+import java.util.List;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class AuthUtils {
@@ -31,20 +33,52 @@ public class AuthUtils {
                                            String accessKey,
                                            String secretKey,
                                            String svcAccountId) {
+        return createAuthMessage(channel, List.of(productId), passphrase, accessKey, secretKey, svcAccountId);
+    }
+
+    /** Subscribes to several products at once; the signature covers the ids concatenated in order. */
+    public static String createAuthMessage(String channel,
+                                           List<String> productIds,
+                                           String passphrase,
+                                           String accessKey,
+                                           String secretKey,
+                                           String svcAccountId) {
+        return createSignedMessage("subscribe", channel, productIds, passphrase, accessKey, secretKey, svcAccountId);
+    }
+
+    public static String createUnsubscribeMessage(String channel,
+                                                  List<String> productIds,
+                                                  String passphrase,
+                                                  String accessKey,
+                                                  String secretKey,
+                                                  String svcAccountId) {
+        return createSignedMessage("unsubscribe", channel, productIds, passphrase, accessKey, secretKey, svcAccountId);
+    }
+
+    private static String createSignedMessage(String type,
+                                              String channel,
+                                              List<String> productIds,
+                                              String passphrase,
+                                              String accessKey,
+                                              String secretKey,
+                                              String svcAccountId) {
 
         String timestamp = String.valueOf(Instant.now().getEpochSecond());
 
-        String signature = sign(channel, accessKey, secretKey, svcAccountId, productId, timestamp);
+        String signature = sign(channel, accessKey, secretKey, svcAccountId, String.join("", productIds), timestamp);
 
         ObjectNode root = MAPPER.createObjectNode();
-        root.put("type", "subscribe");
+        root.put("type", type);
         root.put("channel", channel);
         root.put("access_key", accessKey);
         root.put("api_key_id", svcAccountId);
         root.put("timestamp", timestamp);
         root.put("passphrase", passphrase);
         root.put("signature", signature);
-        root.putArray("product_ids").add(productId);
+        ArrayNode ids = root.putArray("product_ids");
+        for (String productId : productIds) {
+            ids.add(productId);
+        }
 
         try {
             return MAPPER.writeValueAsString(root);
@@ -0,0 +1,50 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential reconnect delay with jitter: the n-th delay is drawn uniformly
+ * from the upper half of min(max, base * 2^n), so clients dropped together
+ * do not reconnect in lockstep. Not thread-safe.
+ */
+final class Backoff {
+
+    private final long baseMillis;
+    private final long maxMillis;
+    private int attempts;
+
+    Backoff(long baseMillis, long maxMillis) {
+        if (baseMillis < 1 || maxMillis < baseMillis) {
+            throw new IllegalArgumentException("need 0 < baseMillis <= maxMillis");
+        }
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    long nextDelayMillis() {
+        long cap = maxMillis;
+        if (attempts < 62 && baseMillis <= maxMillis >> attempts) {
+            cap = baseMillis << attempts;
+        }
+        attempts++;
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap - cap / 2 + 1);
+    }
+
+    void reset() {
+        attempts = 0;
+    }
+}
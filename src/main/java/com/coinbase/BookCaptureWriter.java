@@ -0,0 +1,245 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Persistent binary capture of top-of-book rows, replacing one FileWriter per CSV row.
+ *
+ * Each file starts with a HEADER_BYTES header (magic, layout, scales, product)
+ * followed by fixed RECORD_BYTES records: capture time, sequence_num, both
+ * full-side totals, order id, then the top DEPTH ask prices, ask sizes, bid
+ * prices and bid sizes as scaled longs (0 where the side is shallower).
+ * Rows go through a direct buffer, or straight into a memory-mapped file,
+ * and files rotate by size or age. CaptureCsvConverter turns a file back
+ * into the OrderBookCsvExporter layout.
+ *
+ * Not thread-safe; one writer thread per instance.
+ */
+public class BookCaptureWriter implements Closeable {
+
+    public static final int DEPTH = 10;
+    public static final String FILE_SUFFIX = ".obcap";
+
+    static final long MAGIC = 0x4F42434150303031L;  // "OBCAP001"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int PRODUCT_ID_BYTES = 16;
+    static final int ORDER_ID_BYTES = 48;
+    static final int RECORD_BYTES = 4 * Long.BYTES + ORDER_ID_BYTES + 4 * DEPTH * Long.BYTES;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final String productId;
+    private final ProductScale scale;
+    private final long maxFileBytes;
+    private final long rotateMillis;
+    private final boolean memoryMapped;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private Path currentFile;
+    private long fileOpenedMillis;
+    private long fileBytes;
+    private long recordsWritten;
+
+    /**
+     * @param maxFileBytes  rotate before a file would exceed this size
+     * @param rotateMillis  rotate once a file is this old; 0 disables time rotation
+     * @param memoryMapped  map each file at maxFileBytes and write into the mapping
+     */
+    public BookCaptureWriter(Path directory,
+                             String productId,
+                             ProductScale scale,
+                             long maxFileBytes,
+                             long rotateMillis,
+                             boolean memoryMapped) throws IOException {
+        if (maxFileBytes < HEADER_BYTES + RECORD_BYTES) {
+            throw new IllegalArgumentException("maxFileBytes must fit at least one record");
+        }
+        if (productId.length() > PRODUCT_ID_BYTES) {
+            throw new IllegalArgumentException("productId longer than " + PRODUCT_ID_BYTES + " characters");
+        }
+        this.directory = directory;
+        this.productId = productId;
+        this.scale = scale;
+        this.maxFileBytes = maxFileBytes;
+        this.rotateMillis = rotateMillis;
+        this.memoryMapped = memoryMapped;
+        Files.createDirectories(directory);
+    }
+
+    /** Captures a book change with no order attached. */
+    public void capture(BookView view) throws IOException {
+        capture(view, null);
+    }
+
+    public void capture(BookView view, String orderId) throws IOException {
+        long now = System.currentTimeMillis();
+        ByteBuffer out = reserve(now);
+
+        // A value off the scale throws mid-record; rewind so the next record stays aligned.
+        int start = out.position();
+        try {
+            out.putLong(now);
+            out.putLong(view.getSequenceNum());
+            out.putLong(scale.sizeToLots(view.getTotalAsksQty()));
+            out.putLong(scale.sizeToLots(view.getTotalBidsQty()));
+            putOrderId(out, orderId);
+            putLevels(out, view.getTopAsks());
+            putLevels(out, view.getTopBids());
+        } catch (RuntimeException e) {
+            out.position(start);
+            throw e;
+        }
+
+        fileBytes += RECORD_BYTES;
+        recordsWritten++;
+    }
+
+    /** Pushes buffered rows to the OS; a no-op for memory-mapped files. */
+    public void flush() throws IOException {
+        if (channel == null || memoryMapped) return;
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Flushes and forces the current file to disk. */
+    public void sync() throws IOException {
+        if (channel == null) return;
+        if (memoryMapped) {
+            ((MappedByteBuffer) buffer).force();
+        } else {
+            flush();
+            channel.force(false);
+        }
+    }
+
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeFile();
+    }
+
+    private ByteBuffer reserve(long now) throws IOException {
+        if (channel == null
+                || fileBytes + RECORD_BYTES > maxFileBytes
+                || (rotateMillis > 0 && now - fileOpenedMillis >= rotateMillis)) {
+            closeFile();
+            openFile(now);
+        }
+        if (!memoryMapped && buffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+        return buffer;
+    }
+
+    private void openFile(long now) throws IOException {
+        Path file = directory.resolve(productId + "-" + now + FILE_SUFFIX);
+        for (int i = 1; Files.exists(file); i++) {
+            file = directory.resolve(productId + "-" + now + "-" + i + FILE_SUFFIX);
+        }
+        channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (memoryMapped) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, maxFileBytes);
+        } else {
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        writeHeader(buffer);
+        currentFile = file;
+        fileOpenedMillis = now;
+        fileBytes = HEADER_BYTES;
+    }
+
+    private void closeFile() throws IOException {
+        if (channel == null) return;
+        try {
+            if (memoryMapped) {
+                ((MappedByteBuffer) buffer).force();
+                channel.truncate(fileBytes);
+            } else {
+                flush();
+            }
+        } finally {
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    private void writeHeader(ByteBuffer out) {
+        out.putLong(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(RECORD_BYTES);
+        out.putInt(DEPTH);
+        out.putInt(scale.getPriceDecimals());
+        out.putInt(scale.getSizeDecimals());
+        putAscii(out, productId, PRODUCT_ID_BYTES);
+        while (out.position() < HEADER_BYTES) {
+            out.put((byte) 0);
+        }
+    }
+
+    private void putLevels(ByteBuffer out, List<OrderBookProcessor.Level> levels) {
+        int n = Math.min(DEPTH, levels.size());
+        for (int i = 0; i < DEPTH; i++) {
+            out.putLong(i < n ? scale.priceToTicks(levels.get(i).px) : 0L);
+        }
+        for (int i = 0; i < DEPTH; i++) {
+            out.putLong(i < n ? scale.sizeToLots(levels.get(i).qty) : 0L);
+        }
+    }
+
+    private static void putOrderId(ByteBuffer out, String orderId) {
+        if (orderId != null && orderId.length() > ORDER_ID_BYTES) {
+            throw new IllegalArgumentException("orderId longer than " + ORDER_ID_BYTES + " characters");
+        }
+        putAscii(out, orderId == null ? "" : orderId, ORDER_ID_BYTES);
+    }
+
+    private static void putAscii(ByteBuffer out, String text, int width) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        out.put(bytes);
+        for (int i = bytes.length; i < width; i++) {
+            out.put((byte) 0);
+        }
+    }
+}
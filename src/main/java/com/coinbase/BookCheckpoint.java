@@ -0,0 +1,253 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Every level of one fixed-point book plus the sequence_num it reflects,
+ * saved so a restarted process can show a recent book before the first
+ * snapshot arrives.
+ *
+ * The file is a HEADER_BYTES header (magic, layout, scales, level counts,
+ * product, sequence and save time) followed by bid then ask levels, best
+ * first, as (price ticks, size lots) pairs, and a CRC32 of everything before
+ * it. Files are written to a temporary name and moved into place, so a
+ * crash mid-write leaves the previous checkpoint intact.
+ */
+public final class BookCheckpoint {
+
+    public static final String FILE_SUFFIX = ".obckpt";
+
+    static final long MAGIC = 0x4F42434B50303031L;  // "OBCKP001"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int PRODUCT_ID_BYTES = 16;
+
+    private final String productId;
+    private final ProductScale scale;
+    private final long sequenceNum;
+    private final long savedEpochMillis;
+    private final List<OrderBookProcessor.Level> bids;
+    private final List<OrderBookProcessor.Level> asks;
+
+    BookCheckpoint(String productId,
+                   ProductScale scale,
+                   long sequenceNum,
+                   long savedEpochMillis,
+                   List<OrderBookProcessor.Level> bids,
+                   List<OrderBookProcessor.Level> asks) {
+        if (productId.length() > PRODUCT_ID_BYTES) {
+            throw new IllegalArgumentException("productId longer than " + PRODUCT_ID_BYTES + " characters");
+        }
+        this.productId = productId;
+        this.scale = scale;
+        this.sequenceNum = sequenceNum;
+        this.savedEpochMillis = savedEpochMillis;
+        this.bids = Collections.unmodifiableList(bids);
+        this.asks = Collections.unmodifiableList(asks);
+    }
+
+    /** The current state of a fixed-point book, or null before its first snapshot. */
+    public static BookCheckpoint of(String productId, OrderBookProcessor book) {
+        return book.checkpoint(productId);
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public ProductScale getScale() {
+        return scale;
+    }
+
+    public long getSequenceNum() {
+        return sequenceNum;
+    }
+
+    public long getSavedEpochMillis() {
+        return savedEpochMillis;
+    }
+
+    /** Best-first. */
+    public List<OrderBookProcessor.Level> getBids() {
+        return bids;
+    }
+
+    /** Best-first. */
+    public List<OrderBookProcessor.Level> getAsks() {
+        return asks;
+    }
+
+    /** Loads these levels into book as a provisional view; book must use the same scale. */
+    public void restoreInto(OrderBookProcessor book) {
+        restoreInto(book, true);
+    }
+
+    void restoreInto(OrderBookProcessor book, boolean provisional) {
+        ProductScale target = book.getScale();
+        if (target == null
+                || target.getPriceDecimals() != scale.getPriceDecimals()
+                || target.getSizeDecimals() != scale.getSizeDecimals()) {
+            throw new IllegalArgumentException("Checkpoint scale " + scale + " does not match book scale " + target);
+        }
+        book.restore(bids, asks, sequenceNum, provisional);
+    }
+
+    /** Writes the checkpoint to file, replacing any previous one atomically. */
+    public void write(Path file) throws IOException {
+        ByteBuffer out = ByteBuffer.wrap(toBytes());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static BookCheckpoint read(Path file) throws IOException {
+        return fromBytes(Files.readAllBytes(file), file.toString());
+    }
+
+    /** The file contents write produces. */
+    byte[] toBytes() {
+        int levels = bids.size() + asks.size();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + levels * 2 * Long.BYTES + Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putLong(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(scale.getPriceDecimals());
+        out.putInt(scale.getSizeDecimals());
+        out.putInt(bids.size());
+        out.putInt(asks.size());
+        byte[] id = productId.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < PRODUCT_ID_BYTES; i++) {
+            out.put(i < id.length ? id[i] : 0);
+        }
+        out.putLong(sequenceNum);
+        out.putLong(savedEpochMillis);
+        while (out.position() < HEADER_BYTES) {
+            out.put((byte) 0);
+        }
+        putLevels(out, bids);
+        putLevels(out, asks);
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putLong(crc.getValue());
+        return out.array();
+    }
+
+    /** Parses what toBytes produced; source names the data in error messages. */
+    static BookCheckpoint fromBytes(byte[] bytes, String source) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_BYTES + Long.BYTES || in.getLong() != MAGIC) {
+            throw new IOException("Not a book checkpoint: " + source);
+        }
+        if (in.getInt() != VERSION) {
+            throw new IOException("Unsupported checkpoint layout in " + source);
+        }
+        ProductScale scale = ProductScale.of(in.getInt(), in.getInt());
+        int bidCount = in.getInt();
+        int askCount = in.getInt();
+        byte[] id = new byte[PRODUCT_ID_BYTES];
+        in.get(id);
+        long sequenceNum = in.getLong();
+        long savedEpochMillis = in.getLong();
+
+        long levelBytes = ((long) bidCount + askCount) * 2 * Long.BYTES;
+        if (bidCount < 0 || askCount < 0 || in.capacity() != HEADER_BYTES + levelBytes + Long.BYTES) {
+            throw new IOException("Truncated checkpoint " + source);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(in.array(), 0, in.capacity() - Long.BYTES);
+        if (in.getLong(in.capacity() - Long.BYTES) != crc.getValue()) {
+            throw new IOException("Checksum mismatch in checkpoint " + source);
+        }
+        in.position(HEADER_BYTES);
+        List<OrderBookProcessor.Level> bids = getLevels(in, scale, bidCount, "bid");
+        List<OrderBookProcessor.Level> asks = getLevels(in, scale, askCount, "offer");
+
+        int len = 0;
+        while (len < id.length && id[len] != 0) {
+            len++;
+        }
+        return new BookCheckpoint(new String(id, 0, len, StandardCharsets.US_ASCII),
+                scale, sequenceNum, savedEpochMillis, bids, asks);
+    }
+
+    /**
+     * One line on how far a restored book was from the snapshot that
+     * replaced it: best prices before and after and how many of the top
+     * levels carried over unchanged.
+     */
+    static String describeDrift(BookView restored, BookView snapshot) {
+        return "best bid " + bestPx(restored.getTopBids()) + " -> " + bestPx(snapshot.getTopBids())
+                + ", best ask " + bestPx(restored.getTopAsks()) + " -> " + bestPx(snapshot.getTopAsks())
+                + ", " + (sameLevels(restored.getTopBids(), snapshot.getTopBids())
+                        + sameLevels(restored.getTopAsks(), snapshot.getTopAsks()))
+                + " of " + (snapshot.getTopBids().size() + snapshot.getTopAsks().size())
+                + " top levels unchanged";
+    }
+
+    private static String bestPx(List<OrderBookProcessor.Level> levels) {
+        return levels.isEmpty() ? "-" : levels.get(0).px.toPlainString();
+    }
+
+    private static int sameLevels(List<OrderBookProcessor.Level> before, List<OrderBookProcessor.Level> after) {
+        int same = 0;
+        for (OrderBookProcessor.Level level : after) {
+            for (OrderBookProcessor.Level old : before) {
+                if (old.px.compareTo(level.px) == 0) {
+                    if (old.qty.compareTo(level.qty) == 0) same++;
+                    break;
+                }
+            }
+        }
+        return same;
+    }
+
+    private void putLevels(ByteBuffer out, List<OrderBookProcessor.Level> levels) {
+        for (OrderBookProcessor.Level level : levels) {
+            out.putLong(scale.priceToTicks(level.px));
+            out.putLong(scale.sizeToLots(level.qty));
+        }
+    }
+
+    private static List<OrderBookProcessor.Level> getLevels(ByteBuffer in, ProductScale scale, int count, String side) {
+        List<OrderBookProcessor.Level> levels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BigDecimal px = scale.toPrice(in.getLong());
+            BigDecimal qty = scale.toSize(in.getLong());
+            levels.add(new OrderBookProcessor.Level(px, qty, side));
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,390 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point-in-time queries over FeedRecorder logs for one product.
+ *
+ * build replays the recordings once and writes, next to an index, keyframes:
+ * BookCheckpoints of the full book at every snapshot and at least every
+ * keyframe interval of recorded time. The recordings themselves serve as the
+ * deltas. The index lists each keyframe's recorded time, sequence_num and
+ * the recording offset right after it, so a query restores the nearest
+ * keyframe at or before its target and replays only the frames in between.
+ *
+ * Files in indexDir: productId + INDEX_SUFFIX and productId + KEYFRAMES_SUFFIX.
+ * Recordings are referenced by absolute path and must stay in place.
+ *
+ * Usage: BookHistory index <productId> <priceDecimals> <sizeDecimals> <indexDir> <file.obfeed|dir>...
+ *        BookHistory at <indexDir> <productId> <ISO-8601 instant>
+ */
+public class BookHistory implements Closeable {
+
+    public static final String INDEX_SUFFIX = ".obhist";
+    public static final String KEYFRAMES_SUFFIX = ".obkeys";
+    public static final long DEFAULT_KEYFRAME_INTERVAL_NANOS = 10_000_000_000L;
+
+    static final long MAGIC = 0x4F42484953543031L;  // "OBHIST01"
+    static final int VERSION = 1;
+
+    private static final class Entry {
+        final long recordedNanos;
+        final long sequenceNum;
+        final int fileIndex;
+        final long nextOffset;
+        final long keyOffset;
+        final int keyLength;
+
+        Entry(long recordedNanos, long sequenceNum, int fileIndex, long nextOffset, long keyOffset, int keyLength) {
+            this.recordedNanos = recordedNanos;
+            this.sequenceNum = sequenceNum;
+            this.fileIndex = fileIndex;
+            this.nextOffset = nextOffset;
+            this.keyOffset = keyOffset;
+            this.keyLength = keyLength;
+        }
+    }
+
+    private final String productId;
+    private final ProductScale scale;
+    private final List<Path> files;
+    private final List<Entry> entries;
+    private final FileChannel keyframes;
+
+    private BookHistory(String productId, ProductScale scale, List<Path> files, List<Entry> entries, Path keyframesFile)
+            throws IOException {
+        this.productId = productId;
+        this.scale = scale;
+        this.files = files;
+        this.entries = entries;
+        this.keyframes = FileChannel.open(keyframesFile, StandardOpenOption.READ);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 6 && "index".equals(args[0])) {
+            List<Path> recordings = new ArrayList<>();
+            for (int i = 5; i < args.length; i++) {
+                recordings.add(Path.of(args[i]));
+            }
+            ProductScale scale = ProductScale.of(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            try (BookHistory history = build(recordings, args[1], scale, Path.of(args[4]),
+                    DEFAULT_KEYFRAME_INTERVAL_NANOS)) {
+                System.out.println("Indexed " + history.getKeyframeCount() + " keyframes for " + args[1]);
+            }
+        } else if (args.length == 4 && "at".equals(args[0])) {
+            try (BookHistory history = open(Path.of(args[1]), args[2])) {
+                Instant at = Instant.parse(args[3]);
+                OrderBookProcessor book = history.atTime(at.getEpochSecond() * 1_000_000_000L + at.getNano());
+                if (book == null) {
+                    System.out.println("No book recorded at or before " + at);
+                    return;
+                }
+                BookView view = book.getView();
+                BigDecimal mid = view.getMidPrice();
+                System.out.println("----- " + args[2] + " at " + at + ", sequence " + view.getSequenceNum() + " -----");
+                System.out.println("Mid Price: " + (mid != null ? mid : "N/A"));
+                System.out.println("Top Bids:");
+                for (OrderBookProcessor.Level lvl : view.getTopBids()) {
+                    System.out.println("  " + lvl);
+                }
+                System.out.println("Top Asks:");
+                for (OrderBookProcessor.Level lvl : view.getTopAsks()) {
+                    System.out.println("  " + lvl);
+                }
+            }
+        } else {
+            System.err.println("Usage: BookHistory index <productId> <priceDecimals> <sizeDecimals> <indexDir> <file.obfeed|dir>...");
+            System.err.println("       BookHistory at <indexDir> <productId> <ISO-8601 instant>");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Replays recordings, in order, for productId and writes keyframes and
+     * the index to indexDir, replacing any earlier index of the product.
+     */
+    public static BookHistory build(List<Path> recordings,
+                                    String productId,
+                                    ProductScale scale,
+                                    Path indexDir,
+                                    long keyframeIntervalNanos) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : recordings) {
+            for (Path file : FeedReplay.expand(path)) {
+                files.add(file.toAbsolutePath());
+            }
+        }
+        BookManager books = new BookManager();
+        OrderBookProcessor book = books.addProduct(productId, scale);
+        SequenceTracker tracker = books.getSequenceTracker(productId);
+
+        Files.createDirectories(indexDir);
+        Path keyframesFile = indexDir.resolve(productId + KEYFRAMES_SUFFIX);
+        List<Entry> entries = new ArrayList<>();
+        try (OutputStream keys = new BufferedOutputStream(Files.newOutputStream(keyframesFile))) {
+            long keyOffset = 0;
+            long lastKeyframe = 0;
+            for (int f = 0; f < files.size(); f++) {
+                try (FeedFileReader reader = new FeedFileReader(files.get(f))) {
+                    while (reader.next()) {
+                        long recorded = reader.getRecordedNanos();
+                        String snapshotOf = apply(books, reader);
+                        boolean due = entries.isEmpty() || recorded - lastKeyframe >= keyframeIntervalNanos;
+                        if (!tracker.isInSync() || !(due || productId.equals(snapshotOf))) continue;
+
+                        BookCheckpoint keyframe = book.checkpoint(productId, recorded / 1_000_000L);
+                        byte[] bytes = keyframe.toBytes();
+                        keys.write(bytes);
+                        entries.add(new Entry(recorded, keyframe.getSequenceNum(), f, reader.position(),
+                                keyOffset, bytes.length));
+                        keyOffset += bytes.length;
+                        lastKeyframe = recorded;
+                    }
+                }
+            }
+        }
+
+        Path index = indexDir.resolve(productId + INDEX_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(productId);
+            out.writeInt(scale.getPriceDecimals());
+            out.writeInt(scale.getSizeDecimals());
+            out.writeInt(files.size());
+            for (Path file : files) {
+                out.writeUTF(file.toString());
+            }
+            out.writeInt(entries.size());
+            for (Entry e : entries) {
+                out.writeLong(e.recordedNanos);
+                out.writeLong(e.sequenceNum);
+                out.writeInt(e.fileIndex);
+                out.writeLong(e.nextOffset);
+                out.writeLong(e.keyOffset);
+                out.writeInt(e.keyLength);
+            }
+        }
+        return new BookHistory(productId, scale, files, entries, keyframesFile);
+    }
+
+    /** Opens the index build wrote for productId in indexDir. */
+    public static BookHistory open(Path indexDir, String productId) throws IOException {
+        Path index = indexDir.resolve(productId + INDEX_SUFFIX);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(index))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a book history index: " + index);
+            }
+            String indexed = in.readUTF();
+            if (!indexed.equals(productId)) {
+                throw new IOException(index + " indexes " + indexed + ", not " + productId);
+            }
+            ProductScale scale = ProductScale.of(in.readInt(), in.readInt());
+            int fileCount = in.readInt();
+            List<Path> files = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                files.add(Path.of(in.readUTF()));
+            }
+            int entryCount = in.readInt();
+            List<Entry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(new Entry(in.readLong(), in.readLong(), in.readInt(), in.readLong(), in.readLong(),
+                        in.readInt()));
+            }
+            return new BookHistory(productId, scale, files, entries, indexDir.resolve(productId + KEYFRAMES_SUFFIX));
+        }
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getKeyframeCount() {
+        return entries.size();
+    }
+
+    /** Recorded time of the first keyframe, or -1 if the recordings never had a snapshot. */
+    public long getFirstRecordedNanos() {
+        return entries.isEmpty() ? -1L : entries.get(0).recordedNanos;
+    }
+
+    /**
+     * The book as of the last frame recorded at or before epochNanos, or null
+     * if no snapshot had been recorded by then. The returned book is private
+     * to the caller.
+     */
+    public OrderBookProcessor atTime(long epochNanos) throws IOException {
+        int i = keyframeAtOrBefore(epochNanos);
+        if (i < 0) return null;
+        try (Cursor cursor = new Cursor(entries.get(i))) {
+            cursor.advance(epochNanos, Long.MAX_VALUE);
+            return cursor.book;
+        }
+    }
+
+    /**
+     * The book as of the first message numbered sequenceNum or later, or null
+     * if it was never recorded. Sequence numbers restart with each recorded
+     * connection; the earliest stretch that reaches sequenceNum is used.
+     */
+    public OrderBookProcessor atSequence(long sequenceNum) throws IOException {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            if (e.sequenceNum > sequenceNum) continue;
+            Entry next = i + 1 < entries.size() ? entries.get(i + 1) : null;
+            if (next != null && next.sequenceNum <= sequenceNum && next.sequenceNum >= e.sequenceNum) continue;
+            try (Cursor cursor = new Cursor(e)) {
+                if (cursor.advance(Long.MAX_VALUE, sequenceNum)) {
+                    return cursor.book;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calls listener with the book at fromNanos, then with every view the book
+     * publishes for frames recorded up to toNanos, replaying one frame at a
+     * time so a range of any length runs in constant memory.
+     * @return number of views delivered
+     */
+    public long stream(long fromNanos, long toNanos, BookListener listener) throws IOException {
+        int i = keyframeAtOrBefore(fromNanos);
+        if (i < 0) {
+            if (entries.isEmpty() || entries.get(0).recordedNanos > toNanos) return 0;
+            i = 0;
+        }
+        try (Cursor cursor = new Cursor(entries.get(i))) {
+            cursor.advance(fromNanos, Long.MAX_VALUE);
+            long[] delivered = {1};
+            listener.onBookChange(cursor.book.getView());
+            BookSubscription subscription = cursor.book.subscribe(BookTrigger.everyUpdate(), Runnable::run, view -> {
+                delivered[0]++;
+                listener.onBookChange(view);
+            });
+            try {
+                cursor.advance(toNanos, Long.MAX_VALUE);
+            } finally {
+                subscription.cancel();
+            }
+            return delivered[0];
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        keyframes.close();
+    }
+
+    private int keyframeAtOrBefore(long epochNanos) {
+        int lo = 0;
+        int hi = entries.size() - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries.get(mid).recordedNanos <= epochNanos) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private BookCheckpoint readKeyframe(Entry e) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(e.keyLength);
+        while (bytes.hasRemaining()) {
+            if (keyframes.read(bytes, e.keyOffset + bytes.position()) < 0) {
+                throw new IOException("Truncated keyframe at " + e.keyOffset);
+            }
+        }
+        return BookCheckpoint.fromBytes(bytes.array(), "keyframe at " + e.keyOffset);
+    }
+
+    /** @return the product the frame carried a snapshot of, or null */
+    private static String apply(BookManager books, FeedFileReader reader) {
+        try {
+            return books.onMessage(reader.getFrame());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Skipping unreadable frame at offset " + reader.getRecordOffset() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** A private book positioned at a keyframe, advanced through the recorded frames after it. */
+    private final class Cursor implements Closeable {
+
+        final BookManager books = new BookManager();
+        final OrderBookProcessor book;
+        final SequenceTracker tracker;
+        private int fileIndex;
+        private FeedFileReader reader;
+
+        Cursor(Entry keyframe) throws IOException {
+            book = books.addProduct(productId, scale);
+            tracker = books.getSequenceTracker(productId);
+            books.resume(readKeyframe(keyframe));
+            fileIndex = keyframe.fileIndex;
+            reader = new FeedFileReader(files.get(fileIndex));
+            reader.position(keyframe.nextOffset);
+        }
+
+        /**
+         * Applies frames recorded at or before untilNanos, stopping early once
+         * the book is in sync at untilSequenceNum or later.
+         * @return true if it stopped on reaching untilSequenceNum
+         */
+        boolean advance(long untilNanos, long untilSequenceNum) throws IOException {
+            while (true) {
+                if (!reader.next()) {
+                    if (fileIndex + 1 >= files.size()) return false;
+                    reader.close();
+                    reader = new FeedFileReader(files.get(++fileIndex));
+                    continue;
+                }
+                if (reader.getRecordedNanos() > untilNanos) {
+                    reader.position(reader.getRecordOffset());
+                    return false;
+                }
+                apply(books, reader);
+                if (tracker.isInSync() && tracker.getLastSequenceNum() >= untilSequenceNum) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
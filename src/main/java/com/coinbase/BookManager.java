@@ -0,0 +1,435 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps one OrderBookProcessor per product_id behind a single l2_data
+ * subscription and routes each event of a message to its product's book.
+ *
+ * sequence_num counts the connection's messages, so contiguity is checked
+ * once per message across all products. On a gap every product may have
+ * missed updates: each is marked out of sync, its updates are dropped and
+ * the resubscriber is asked for a fresh snapshot of it, repeated if none
+ * arrives in time. Each event is also checked against its product's
+ * SequenceTracker, which drops duplicates.
+ *
+ * onMessage must be called from one feed thread; getBook may be called from any thread.
+ */
+public class BookManager {
+
+    private static final String CHANNEL = "l2_data";
+    private static final long RESNAPSHOT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Map<String, OrderBookProcessor> books = new ConcurrentHashMap<>();
+    private final L2StreamDecoder decoder = new L2StreamDecoder();
+
+    // Parallel arrays for allocation-free routing on the feed thread.
+    private volatile String[] productIds = new String[0];
+    private volatile OrderBookProcessor[] processors = new OrderBookProcessor[0];
+    private volatile SequenceTracker[] trackers = new SequenceTracker[0];
+
+    private volatile Consumer<String> resubscriber;
+    private MetricsRegistry registry;
+    private long messages;
+    private long lastSequenceNum = -1L;
+    private volatile long connectionGaps;
+
+    // Provisional views replaced by a snapshot, reported once the snapshot is published.
+    private final Map<String, BookView> restoredViews = new HashMap<>();
+
+    private final FeedMetrics metrics = new FeedMetrics();
+    private boolean batching;
+    private long[] batchReceipts = new long[64];
+    private int batchSize;
+
+    /**
+     * Registers a product, with a scale for fixed-point mode or null for BigDecimal.
+     * Products added after subscribing only receive data once resubscribed.
+     */
+    public synchronized OrderBookProcessor addProduct(String productId, ProductScale scale) {
+        OrderBookProcessor existing = books.get(productId);
+        if (existing != null) {
+            return existing;
+        }
+        OrderBookProcessor book = new OrderBookProcessor(scale);
+        int n = productIds.length;
+        OrderBookProcessor[] nextProcessors = Arrays.copyOf(processors, n + 1);
+        nextProcessors[n] = book;
+        String[] nextIds = Arrays.copyOf(productIds, n + 1);
+        nextIds[n] = productId;
+        SequenceTracker tracker = new SequenceTracker();
+        SequenceTracker[] nextTrackers = Arrays.copyOf(trackers, n + 1);
+        nextTrackers[n] = tracker;
+        trackers = nextTrackers;
+        processors = nextProcessors;
+        productIds = nextIds;
+        books.put(productId, book);
+        if (registry != null) {
+            bindProduct(registry, productId, book, tracker);
+        }
+        return book;
+    }
+
+    /** The book for productId, or null if it was never added. */
+    public OrderBookProcessor getBook(String productId) {
+        return books.get(productId);
+    }
+
+    /** Sequence state and gap/duplicate counts for productId, or null if it was never added. */
+    public SequenceTracker getSequenceTracker(String productId) {
+        int i = indexOf(productIds, productId);
+        return i >= 0 ? trackers[i] : null;
+    }
+
+    /** Called with a product id whenever that product needs a fresh snapshot. */
+    public void setResubscriber(Consumer<String> resubscriber) {
+        this.resubscriber = resubscriber;
+    }
+
+    /** Marks every product out of sync until the new connection's snapshots arrive. */
+    public void resetSequences() {
+        lastSequenceNum = -1L;
+        for (SequenceTracker tracker : trackers) {
+            tracker.reset();
+        }
+    }
+
+    /** True once every product has a snapshot and no open sequence gap. */
+    public boolean isInSync() {
+        for (SequenceTracker tracker : trackers) {
+            if (!tracker.isInSync()) return false;
+        }
+        return true;
+    }
+
+    /** Adds every product of other that this manager lacks, with the same scale. */
+    public void addProductsOf(BookManager other) {
+        for (String productId : other.productIds) {
+            addProduct(productId, other.getBook(productId).getScale());
+        }
+    }
+
+    /**
+     * Takes over other's books and sequence positions product by product and
+     * hands this manager's previous books to other, whose products are then
+     * marked out of sync. Subscribers of this manager's books keep their
+     * subscriptions and see the adopted state published at once. Neither
+     * manager's feed thread may be applying messages meanwhile.
+     */
+    public synchronized void adopt(BookManager other) {
+        lastSequenceNum = other.lastSequenceNum;
+        other.lastSequenceNum = -1L;
+        for (int i = 0; i < productIds.length; i++) {
+            int j = indexOf(other.productIds, productIds[i]);
+            if (j < 0) {
+                trackers[i].reset();
+                continue;
+            }
+            processors[i].swapState(other.processors[j]);
+            trackers[i].adopt(other.trackers[j]);
+            other.trackers[j].reset();
+        }
+    }
+
+    /** Each product's book as a snapshot message, e.g. to restart a recording; products without one are skipped. */
+    public List<String> snapshotMessages() {
+        List<String> snapshots = new ArrayList<>();
+        String[] ids = productIds;
+        OrderBookProcessor[] targets = processors;
+        for (int i = 0; i < ids.length; i++) {
+            String snapshot = targets[i].toSnapshotMessage(ids[i]);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Writes a BookCheckpoint of every fixed-point product with a snapshot
+     * into dir, as productId + BookCheckpoint.FILE_SUFFIX.
+     * @return number of checkpoints written
+     */
+    public int checkpointTo(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        int written = 0;
+        String[] ids = productIds;
+        OrderBookProcessor[] targets = processors;
+        for (int i = 0; i < ids.length; i++) {
+            BookCheckpoint checkpoint = BookCheckpoint.of(ids[i], targets[i]);
+            if (checkpoint != null) {
+                checkpoint.write(dir.resolve(ids[i] + BookCheckpoint.FILE_SUFFIX));
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Loads every product's checkpoint found in dir as a provisional book,
+     * to be confirmed by the product's next snapshot. Call before connecting.
+     * Unreadable or mismatched checkpoints are reported and skipped.
+     * @return number of books restored
+     */
+    public int restoreFrom(Path dir) {
+        int restored = 0;
+        String[] ids = productIds;
+        OrderBookProcessor[] targets = processors;
+        for (int i = 0; i < ids.length; i++) {
+            Path file = dir.resolve(ids[i] + BookCheckpoint.FILE_SUFFIX);
+            if (!Files.exists(file)) continue;
+            try {
+                BookCheckpoint checkpoint = BookCheckpoint.read(file);
+                if (!checkpoint.getProductId().equals(ids[i])) {
+                    throw new IOException("checkpoint is for " + checkpoint.getProductId());
+                }
+                checkpoint.restoreInto(targets[i]);
+                restored++;
+                System.out.println("Restored " + ids[i] + " from checkpoint at sequence " + checkpoint.getSequenceNum()
+                        + ", saved " + (System.currentTimeMillis() - checkpoint.getSavedEpochMillis()) + " ms ago.");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Skipping checkpoint " + file + ": " + e.getMessage());
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Restores checkpoint as confirmed state of its product and continues the
+     * sequence from it, so recorded updates that followed it apply on top.
+     */
+    void resume(BookCheckpoint checkpoint) {
+        int i = indexOf(productIds, checkpoint.getProductId());
+        if (i < 0) {
+            throw new IllegalArgumentException("Unknown product " + checkpoint.getProductId());
+        }
+        checkpoint.restoreInto(processors[i], false);
+        trackers[i].resume(checkpoint.getSequenceNum());
+    }
+
+    public List<String> getProductIds() {
+        return List.of(productIds);
+    }
+
+    public FeedMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Times the connection's sequence_num skipped messages, each resnapshotting every product. */
+    public long getConnectionGapCount() {
+        return connectionGaps;
+    }
+
+    /**
+     * Publishes the feed metrics under "feed" and, per product, book depth and
+     * sequence state under the product id, including products added later.
+     */
+    public synchronized void bindMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        metrics.bindTo(registry, "feed");
+        registry.gauge("feed", "connectionGaps", this::getConnectionGapCount);
+        for (int i = 0; i < productIds.length; i++) {
+            bindProduct(registry, productIds[i], processors[i], trackers[i]);
+        }
+    }
+
+    private static void bindProduct(MetricsRegistry registry, String productId,
+                                    OrderBookProcessor book, SequenceTracker tracker) {
+        registry.gauge(productId, "bidDepth", () -> book.getView().getBidDepth());
+        registry.gauge(productId, "askDepth", () -> book.getView().getAskDepth());
+        registry.gauge(productId, "viewVersion", () -> book.getView().getVersion());
+        registry.gauge(productId, "lastSequenceNum", tracker::getLastSequenceNum);
+        registry.gauge(productId, "inSync", () -> tracker.isInSync() ? 1 : 0);
+        registry.gauge(productId, "gaps", tracker::getGapCount);
+        registry.gauge(productId, "duplicates", tracker::getDuplicateCount);
+        registry.gauge(productId, "applyFailures", tracker::getApplyFailureCount);
+    }
+
+    public String createSubscribeMessage(String passphrase,
+                                         String accessKey,
+                                         String secretKey,
+                                         String svcAccountId) {
+        return AuthUtils.createAuthMessage(CHANNEL, getProductIds(), passphrase, accessKey, secretKey, svcAccountId);
+    }
+
+    /**
+     * Starts a batch on every book: until endBatch, messages are coalesced per
+     * price level and no book publishes a new view.
+     */
+    public void beginBatch() {
+        batching = true;
+        for (OrderBookProcessor book : processors) {
+            book.beginBatch();
+        }
+    }
+
+    /** Applies what each book staged since beginBatch and publishes it once. */
+    public void endBatch() {
+        long start = System.nanoTime();
+        for (OrderBookProcessor book : processors) {
+            book.endBatch();
+        }
+        long end = System.nanoTime();
+        batching = false;
+        reportReconciled();
+        if (batchSize > 0) {
+            metrics.recordApply(end - start);
+            for (int i = 0; i < batchSize; i++) {
+                metrics.recordApplied(batchReceipts[i], end);
+            }
+            batchSize = 0;
+        }
+    }
+
+    /**
+     * Applies every event of a raw message to the book for its product_id;
+     * events for products that were never added are skipped.
+     * @return the product id of a snapshot carried by the message, or null
+     */
+    public String onMessage(String json) throws IOException {
+        return onMessage(json, System.nanoTime());
+    }
+
+    /** As onMessage, with receivedNanos the System.nanoTime the frame arrived, for receipt-to-applied latency. */
+    public String onMessage(String json, long receivedNanos) throws IOException {
+        long start = System.nanoTime();
+        long levelsBefore = decoder.getLevelCount();
+        String snapshotOf;
+        try {
+            snapshotOf = route(json);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordParseFailure();
+            throw e;
+        }
+        long end = System.nanoTime();
+        metrics.recordMessage(decoder.getLevelCount() - levelsBefore, end - start);
+
+        if (batching) {
+            if (batchSize == batchReceipts.length) {
+                batchReceipts = Arrays.copyOf(batchReceipts, batchSize * 2);
+            }
+            batchReceipts[batchSize++] = receivedNanos;
+        } else {
+            metrics.recordApplied(receivedNanos, end);
+            reportReconciled();
+        }
+        return snapshotOf;
+    }
+
+    private void reportReconciled() {
+        if (restoredViews.isEmpty()) return;
+        for (Map.Entry<String, BookView> e : restoredViews.entrySet()) {
+            System.out.println("Checkpoint of " + e.getKey() + " reconciled with snapshot: "
+                    + BookCheckpoint.describeDrift(e.getValue(), getBook(e.getKey()).getView()) + ".");
+        }
+        restoredViews.clear();
+    }
+
+    private String route(String json) throws IOException {
+        if (!decoder.begin(json)) return null;
+
+        String[] ids = productIds;
+        OrderBookProcessor[] targets = processors;
+        SequenceTracker[] sequences = trackers;
+        long message = ++messages;
+        long sequenceNum = decoder.getSequenceNum();
+        String snapshotOf = null;
+        if (sequenceNum >= 0) {
+            if (lastSequenceNum >= 0 && sequenceNum > lastSequenceNum + 1) {
+                onConnectionGap(ids, sequences, sequenceNum);
+            }
+            lastSequenceNum = Math.max(lastSequenceNum, sequenceNum);
+        }
+        try {
+            while (decoder.nextEvent()) {
+                int i = indexOf(ids, decoder.productId());
+                if (i < 0) continue;
+
+                SequenceTracker.Result result = decoder.isSnapshot()
+                        ? sequences[i].onSnapshot(sequenceNum, message)
+                        : sequences[i].onUpdate(sequenceNum, message);
+
+                if (result == SequenceTracker.Result.APPLY) {
+                    BookView restored = targets[i].isProvisional() ? targets[i].getView() : null;
+                    boolean snapshot;
+                    try {
+                        snapshot = targets[i].applyEvent(decoder);
+                    } catch (IOException | RuntimeException e) {
+                        // The tracker already counted this sequence_num, so only a snapshot can resync.
+                        sequences[i].onApplyFailure();
+                        if (sequences[i].claimResnapshot(System.nanoTime(), RESNAPSHOT_TIMEOUT_NANOS)) {
+                            requestResnapshot(ids[i], "Failed to apply " + ids[i] + " at " + sequenceNum
+                                    + " (" + e.getMessage() + ")");
+                        }
+                        throw e;
+                    }
+                    if (snapshot) {
+                        snapshotOf = ids[i];
+                        if (restored != null) {
+                            restoredViews.put(ids[i], restored);
+                        }
+                    }
+                } else if (result == SequenceTracker.Result.AWAITING_SNAPSHOT
+                        && sequences[i].claimResnapshot(System.nanoTime(), RESNAPSHOT_TIMEOUT_NANOS)) {
+                    requestResnapshot(ids[i], "Still no snapshot of " + ids[i] + " at " + sequenceNum);
+                }
+            }
+        } finally {
+            decoder.close();
+        }
+        return snapshotOf;
+    }
+
+    private void onConnectionGap(String[] ids, SequenceTracker[] sequences, long sequenceNum) {
+        connectionGaps++;
+        long now = System.nanoTime();
+        for (int i = 0; i < ids.length; i++) {
+            sequences[i].onConnectionGap();
+            if (sequences[i].claimResnapshot(now, RESNAPSHOT_TIMEOUT_NANOS)) {
+                requestResnapshot(ids[i], "Sequence gap at " + sequenceNum + " (last " + lastSequenceNum
+                        + ") may have skipped " + ids[i]);
+            }
+        }
+    }
+
+    private void requestResnapshot(String productId, String reason) {
+        System.err.println(reason + "; requesting snapshot.");
+        Consumer<String> target = resubscriber;
+        if (target != null) {
+            target.accept(productId);
+        }
+    }
+
+    private static int indexOf(String[] ids, CharSequence productId) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].contentEquals(productId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One side of the book, kept permanently ordered best-first.
+ */
+abstract class BookSide {
+
+    /** Empties the side, including anything staged. */
+    abstract void clear();
+
+    /**
+     * Like clear, but held back until flush: the side keeps serving its
+     * levels until then, and flush rebuilds it from what is staged after
+     * this call.
+     */
+    abstract void stageClear();
+
+    /** Sets the level at lvl.px; a non-positive qty removes it. */
+    abstract void apply(OrderBookProcessor.Level lvl);
+
+    /** Like apply, but held back until flush; a later write to the same px replaces it. */
+    abstract void stage(OrderBookProcessor.Level lvl);
+
+    /** Drops everything staged, including a staged clear, leaving the side as it is. */
+    abstract void discardStaged();
+
+    /** Applies every staged level, once each. */
+    abstract void flush();
+
+    abstract int depth();
+
+    /** Best level, or null if the side is empty. */
+    abstract OrderBookProcessor.Level best();
+
+    abstract BigDecimal totalQty();
+
+    abstract List<OrderBookProcessor.Level> top(int n);
+
+    /** Total size of the best n levels. */
+    abstract BigDecimal topQty(int n);
+
+    /** Size of the level at exactly px, zero if there is none. */
+    abstract BigDecimal qtyAt(BigDecimal px);
+
+    /** Total size at prices at least as good as px, which need not be on a tick. */
+    abstract BigDecimal qtyAtOrBetter(BigDecimal px);
+
+    /**
+     * qtyAtOrBetter for depth band number band, whose threshold px moves with
+     * mid on every publish; a side may keep each band's sum between calls.
+     */
+    BigDecimal bandQty(int band, BigDecimal px) {
+        return qtyAtOrBetter(px);
+    }
+
+    /** Sum of px * qty for taking qty from the best level down, or null if the side holds less. */
+    abstract BigDecimal costToFill(BigDecimal qty);
+}
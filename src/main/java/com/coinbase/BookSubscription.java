@@ -0,0 +1,104 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One listener registered on an OrderBookProcessor.
+ *
+ * Views that fire the trigger are conflated into a single pending slot, and
+ * at most one delivery task per subscription is queued on its executor, so a
+ * slow listener only ever sees the latest view and never holds up the feed
+ * thread or other subscribers. Calls to one listener never overlap.
+ */
+public final class BookSubscription {
+
+    private final OrderBookProcessor book;
+    private final BookTrigger trigger;
+    private final Executor executor;
+    private final BookListener listener;
+
+    private final AtomicReference<BookView> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private volatile boolean cancelled;
+
+    BookSubscription(OrderBookProcessor book, BookTrigger trigger, Executor executor, BookListener listener) {
+        this.book = book;
+        this.trigger = trigger;
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    /** Stops further deliveries; one already running completes. */
+    public void cancel() {
+        cancelled = true;
+        book.unsubscribe(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Views handed to the listener. */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /** Views replaced by a newer one before the listener got to them. */
+    public long getConflated() {
+        return conflated.get();
+    }
+
+    /** Feed thread, on every publish. */
+    void onPublish(BookView previous, BookView current) {
+        if (cancelled || !trigger.fires(previous, current)) return;
+        if (pending.getAndSet(current) != null) {
+            conflated.incrementAndGet();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                System.err.println("Failed to dispatch book change: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            BookView view = pending.getAndSet(null);
+            if (view != null && !cancelled) {
+                try {
+                    listener.onBookChange(view);
+                } catch (RuntimeException e) {
+                    System.err.println("Book listener failed: " + e.getMessage());
+                }
+                delivered.incrementAndGet();
+            }
+            scheduled.set(false);
+            // A view published after the getAndSet above has no task of its own yet.
+            if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+}
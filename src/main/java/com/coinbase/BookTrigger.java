@@ -0,0 +1,85 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decides, from the previous and the newly published view, whether a
+ * subscriber is notified. Evaluated on the feed thread for every publish,
+ * so implementations must be cheap and must not block.
+ */
+@FunctionalInterface
+public interface BookTrigger {
+
+    boolean fires(BookView previous, BookView current);
+
+    /** Every published view. */
+    static BookTrigger everyUpdate() {
+        return (previous, current) -> true;
+    }
+
+    /** Best bid or best ask changed in price or size, or a side emptied or filled. */
+    static BookTrigger topOfBook() {
+        return topLevels(1);
+    }
+
+    /**
+     * Any of the best n levels of either side changed in price or size. Only
+     * the levels a view carries are compared, so n is capped at the view depth.
+     */
+    static BookTrigger topLevels(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        return (previous, current) ->
+                !sameLevels(previous.getTopBids(), current.getTopBids(), n)
+                        || !sameLevels(previous.getTopAsks(), current.getTopAsks(), n);
+    }
+
+    /** Mid moved from below threshold to at or above it, or back. */
+    static BookTrigger midCrosses(BigDecimal threshold) {
+        return crosses(BookView::getMidPrice, threshold);
+    }
+
+    /**
+     * metric moved from below threshold to at or above it, or back. Views
+     * where metric is null never fire.
+     */
+    static BookTrigger crosses(Function<BookView, BigDecimal> metric, BigDecimal threshold) {
+        return (previous, current) -> {
+            BigDecimal before = metric.apply(previous);
+            BigDecimal after = metric.apply(current);
+            return before != null && after != null
+                    && (before.compareTo(threshold) < 0) != (after.compareTo(threshold) < 0);
+        };
+    }
+
+    private static boolean sameLevels(List<OrderBookProcessor.Level> a, List<OrderBookProcessor.Level> b, int n) {
+        int na = Math.min(n, a.size());
+        int nb = Math.min(n, b.size());
+        if (na != nb) return false;
+        for (int i = 0; i < na; i++) {
+            OrderBookProcessor.Level x = a.get(i);
+            OrderBookProcessor.Level y = b.get(i);
+            if (x.px.compareTo(y.px) != 0 || x.qty.compareTo(y.qty) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
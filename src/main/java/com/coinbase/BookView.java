@@ -0,0 +1,215 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable top-of-book state published by OrderBookProcessor after each
+ * applied event. Everything in one view comes from the same book state, so a
+ * reader gets mid, top levels, totals and sequence from a single volatile read.
+ */
+public final class BookView {
+
+    static final BookView EMPTY = new BookView(-1L, 0L, List.of(), List.of(), null, BigDecimal.ZERO, BigDecimal.ZERO, 0, 0,
+            BigDecimal.ZERO, BigDecimal.ZERO, new int[0], new BigDecimal[0], new BigDecimal[0], false,
+            new FixedTop(new long[0], new long[0], new long[0], new long[0], 0L, 0L), 0L);
+
+    /** The same top levels in ticks and lots, which OrderBookProcessor.copyTop copies from. */
+    static final class FixedTop {
+        final long[] bidTicks;
+        final long[] bidLots;
+        final long[] askTicks;
+        final long[] askLots;
+        final long totalBidLots;
+        final long totalAskLots;
+
+        FixedTop(long[] bidTicks, long[] bidLots, long[] askTicks, long[] askLots,
+                 long totalBidLots, long totalAskLots) {
+            this.bidTicks = bidTicks;
+            this.bidLots = bidLots;
+            this.askTicks = askTicks;
+            this.askLots = askLots;
+            this.totalBidLots = totalBidLots;
+            this.totalAskLots = totalAskLots;
+        }
+    }
+
+    private final long sequenceNum;
+    private final long version;
+    private final List<OrderBookProcessor.Level> topBids;
+    private final List<OrderBookProcessor.Level> topAsks;
+    private final BigDecimal midPrice;
+    private final BigDecimal totalBidsQty;
+    private final BigDecimal totalAsksQty;
+    private final int bidDepth;
+    private final int askDepth;
+    private final BigDecimal topBidsQty;
+    private final BigDecimal topAsksQty;
+    private final int[] depthBandsBps;
+    private final BigDecimal[] bidBands;
+    private final BigDecimal[] askBands;
+    private final boolean provisional;
+    private final FixedTop fixedTop;
+    private final long publishedNanos;
+
+    /** @param fixedTop null for a BigDecimal book */
+    BookView(long sequenceNum,
+             long version,
+             List<OrderBookProcessor.Level> topBids,
+             List<OrderBookProcessor.Level> topAsks,
+             BigDecimal midPrice,
+             BigDecimal totalBidsQty,
+             BigDecimal totalAsksQty,
+             int bidDepth,
+             int askDepth,
+             BigDecimal topBidsQty,
+             BigDecimal topAsksQty,
+             int[] depthBandsBps,
+             BigDecimal[] bidBands,
+             BigDecimal[] askBands,
+             boolean provisional,
+             FixedTop fixedTop,
+             long publishedNanos) {
+        this.sequenceNum = sequenceNum;
+        this.version = version;
+        this.topBids = Collections.unmodifiableList(topBids);
+        this.topAsks = Collections.unmodifiableList(topAsks);
+        this.midPrice = midPrice;
+        this.totalBidsQty = totalBidsQty;
+        this.totalAsksQty = totalAsksQty;
+        this.bidDepth = bidDepth;
+        this.askDepth = askDepth;
+        this.topBidsQty = topBidsQty;
+        this.topAsksQty = topAsksQty;
+        this.depthBandsBps = depthBandsBps;
+        this.bidBands = bidBands;
+        this.askBands = askBands;
+        this.provisional = provisional;
+        this.fixedTop = fixedTop;
+        this.publishedNanos = publishedNanos;
+    }
+
+    /** sequence_num of the last message applied, or -1 if unknown. */
+    public long getSequenceNum() {
+        return sequenceNum;
+    }
+
+    /**
+     * True while the book holds levels restored from a BookCheckpoint that no
+     * live snapshot has confirmed yet: usable as a recent price, not as the
+     * current book.
+     */
+    public boolean isProvisional() {
+        return provisional;
+    }
+
+    /** Increases by one with every view the book publishes. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** System.nanoTime when the view was published. */
+    long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    FixedTop getFixedTop() {
+        return fixedTop;
+    }
+
+    /** Best-first, at most the book's view depth. */
+    public List<OrderBookProcessor.Level> getTopBids() {
+        return topBids;
+    }
+
+    /** Best-first, at most the book's view depth. */
+    public List<OrderBookProcessor.Level> getTopAsks() {
+        return topAsks;
+    }
+
+    /** Null while either side is empty. */
+    public BigDecimal getMidPrice() {
+        return midPrice;
+    }
+
+    public BigDecimal getTotalBidsQty() {
+        return totalBidsQty;
+    }
+
+    public BigDecimal getTotalAsksQty() {
+        return totalAsksQty;
+    }
+
+    /** Number of price levels on the bid side of the whole book. */
+    public int getBidDepth() {
+        return bidDepth;
+    }
+
+    /** Number of price levels on the ask side of the whole book. */
+    public int getAskDepth() {
+        return askDepth;
+    }
+
+    /** Total size of the levels in getTopBids. */
+    public BigDecimal getTopBidsQty() {
+        return topBidsQty;
+    }
+
+    /** Total size of the levels in getTopAsks. */
+    public BigDecimal getTopAsksQty() {
+        return topAsksQty;
+    }
+
+    /**
+     * (bids - asks) / (bids + asks) over the top levels, from -1 (all asks)
+     * to 1 (all bids); 0 for an empty book.
+     */
+    public double getImbalance() {
+        double bidsQty = topBidsQty.doubleValue();
+        double asksQty = topAsksQty.doubleValue();
+        double sum = bidsQty + asksQty;
+        return sum == 0.0 ? 0.0 : (bidsQty - asksQty) / sum;
+    }
+
+    /** The bands set with OrderBookProcessor.setDepthBandsBps. */
+    public int[] getDepthBandsBps() {
+        return depthBandsBps.clone();
+    }
+
+    /**
+     * Bid size priced within bps of mid, for one of the configured bands; null
+     * for any other bps or while there is no mid.
+     */
+    public BigDecimal getBidsQtyWithinBps(int bps) {
+        return band(bidBands, bps);
+    }
+
+    /** Ask size priced within bps of mid; see getBidsQtyWithinBps. */
+    public BigDecimal getAsksQtyWithinBps(int bps) {
+        return band(askBands, bps);
+    }
+
+    private BigDecimal band(BigDecimal[] bands, int bps) {
+        for (int i = 0; i < depthBandsBps.length; i++) {
+            if (depthBandsBps[i] == bps) {
+                return bands[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,177 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Depth ladders of a fixed-point book aggregated at several price
+ * granularities, e.g. new BucketedBook(book, 0.10, 1, 10) in dollars.
+ *
+ * Bids fall into the bucket at or below their price and asks into the one
+ * at or above it, so a bucket never looks better than the levels in it.
+ * As a LevelObserver each level change moves its size delta into one
+ * bucket per granularity in place; the buckets are kept best-first in
+ * ScaledBookSides, so reading n buckets is O(n) whatever the book depth.
+ *
+ * Updated on the feed thread; reads take this object's lock only, never
+ * the book's.
+ */
+public class BucketedBook implements LevelObserver {
+
+    private final ProductScale scale;
+    private final BigDecimal[] widths;
+    private final long[] widthTicks;
+
+    // Sizes per level as last reported, to turn absolute sizes into deltas.
+    private final ScaledBookSide bidLevels;
+    private final ScaledBookSide askLevels;
+    private final ScaledBookSide[] bidBuckets;
+    private final ScaledBookSide[] askBuckets;
+    private boolean resyncing;
+    private long sequenceNum = -1L;
+
+    /** Follows book, which must be fixed-point, at each width, a price on the book's tick. */
+    public BucketedBook(OrderBookProcessor book, BigDecimal... widths) {
+        if (widths.length == 0) {
+            throw new IllegalArgumentException("At least one bucket width is needed");
+        }
+        this.scale = book.getScale();
+        if (scale == null) {
+            throw new IllegalStateException("Bucketed views need a fixed-point book");
+        }
+        this.widths = widths.clone();
+        this.widthTicks = new long[widths.length];
+        this.bidBuckets = new ScaledBookSide[widths.length];
+        this.askBuckets = new ScaledBookSide[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            widthTicks[i] = scale.priceToTicks(widths[i]);
+            if (widthTicks[i] <= 0) {
+                throw new IllegalArgumentException("Bucket width must be positive: " + widths[i]);
+            }
+            bidBuckets[i] = new ScaledBookSide(true, scale);
+            askBuckets[i] = new ScaledBookSide(false, scale);
+        }
+        this.bidLevels = new ScaledBookSide(true, scale);
+        this.askLevels = new ScaledBookSide(false, scale);
+        book.addLevelObserver(this);
+    }
+
+    public List<BigDecimal> getWidths() {
+        return List.of(widths);
+    }
+
+    /** Best n bid buckets at width, each priced at its lower bound. */
+    public synchronized List<OrderBookProcessor.Level> getBidBuckets(BigDecimal width, int n) {
+        return bidBuckets[indexOf(width)].top(n);
+    }
+
+    /** Best n ask buckets at width, each priced at its upper bound. */
+    public synchronized List<OrderBookProcessor.Level> getAskBuckets(BigDecimal width, int n) {
+        return askBuckets[indexOf(width)].top(n);
+    }
+
+    /** Number of non-empty buckets on one side at width. */
+    public synchronized int getBucketCount(boolean bid, BigDecimal width) {
+        return (bid ? bidBuckets : askBuckets)[indexOf(width)].depth();
+    }
+
+    /** Sequence of the last event reflected in the buckets. */
+    public synchronized long getSequenceNum() {
+        return sequenceNum;
+    }
+
+    private int indexOf(BigDecimal width) {
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i].compareTo(width) == 0) return i;
+        }
+        throw new IllegalArgumentException("No buckets of width " + width);
+    }
+
+    // -------------------- LevelObserver, on the feed thread -------------------- //
+
+    @Override
+    public synchronized void onLevel(boolean bid, long pxTicks, long qtyLots) {
+        ScaledBookSide levels = bid ? bidLevels : askLevels;
+        long lots = Math.max(0L, qtyLots);
+        if (resyncing) {
+            levels.stage(pxTicks, lots);
+            return;
+        }
+        long delta = lots - levels.lotsAtPrice(pxTicks);
+        if (delta == 0) return;
+        levels.apply(pxTicks, lots);
+
+        ScaledBookSide[] buckets = bid ? bidBuckets : askBuckets;
+        for (int i = 0; i < buckets.length; i++) {
+            long bucket = bucketOf(bid, pxTicks, widthTicks[i]);
+            buckets[i].apply(bucket, buckets[i].lotsAtPrice(bucket) + delta);
+        }
+    }
+
+    private static long bucketOf(boolean bid, long pxTicks, long width) {
+        return bid ? Math.floorDiv(pxTicks, width) * width : -Math.floorDiv(-pxTicks, width) * width;
+    }
+
+    @Override
+    public synchronized void onResync() {
+        resyncing = true;
+        bidLevels.clear();
+        askLevels.clear();
+        for (int i = 0; i < widths.length; i++) {
+            bidBuckets[i].clear();
+            askBuckets[i].clear();
+        }
+    }
+
+    @Override
+    public synchronized void onEventEnd(long sequenceNum) {
+        this.sequenceNum = sequenceNum;
+        if (resyncing) {
+            resyncing = false;
+            bidLevels.flush();
+            askLevels.flush();
+            rebuild(bidLevels, bidBuckets);
+            rebuild(askLevels, askBuckets);
+        }
+    }
+
+    /**
+     * Refills every granularity from levels in one best-first pass. A
+     * snapshot is sorted once this way instead of inserted level by level.
+     */
+    private void rebuild(ScaledBookSide levels, ScaledBookSide[] buckets) {
+        boolean bid = levels == bidLevels;
+        for (int i = 0; i < buckets.length; i++) {
+            long bucket = 0L;
+            long lots = 0L;
+            for (int rank = 0; rank < levels.depth(); rank++) {
+                long b = bucketOf(bid, levels.ticksAt(rank), widthTicks[i]);
+                if (lots > 0 && b != bucket) {
+                    buckets[i].stage(bucket, lots);
+                    lots = 0L;
+                }
+                bucket = b;
+                lots += levels.lotsAt(rank);
+            }
+            if (lots > 0) {
+                buckets[i].stage(bucket, lots);
+            }
+            buckets[i].flush();
+        }
+    }
+}
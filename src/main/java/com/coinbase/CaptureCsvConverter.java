@@ -0,0 +1,88 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns BookCaptureWriter files back into the OrderBookCsvExporter layout.
+ *
+ * Usage: CaptureCsvConverter <output.csv> <capture.obcap>...
+ */
+public class CaptureCsvConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CaptureCsvConverter <output.csv> <capture.obcap>...");
+            System.exit(1);
+        }
+        Path csv = Path.of(args[0]);
+        long rows = 0;
+        for (int i = 1; i < args.length; i++) {
+            rows += convert(Path.of(args[i]), csv);
+        }
+        System.out.println("Wrote " + rows + " rows to " + csv);
+    }
+
+    /**
+     * Appends every record of captureFile to csvFile, writing the header first
+     * if csvFile does not exist yet.
+     * @return number of rows written
+     */
+    public static long convert(Path captureFile, Path csvFile) throws IOException {
+        OrderBookCsvExporter.ensureCsvHasHeaderIfNeeded(csvFile.toString());
+
+        long rows = 0;
+        try (CaptureReader reader = new CaptureReader(captureFile);
+             BufferedWriter out = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8,
+                     StandardOpenOption.APPEND)) {
+            ProductScale scale = reader.getScale();
+            CaptureReader.Record rec = new CaptureReader.Record();
+            while (reader.next(rec)) {
+                out.write(OrderBookCsvExporter.formatRow(
+                        rec.orderId,
+                        levels(scale, rec.askPx, rec.askQty, "offer"),
+                        levels(scale, rec.bidPx, rec.bidQty, "bid"),
+                        plain(scale.toSize(rec.totalAskLots)),
+                        plain(scale.toSize(rec.totalBidLots))
+                ));
+                out.write("\n");
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static List<OrderBookProcessor.Level> levels(ProductScale scale, long[] px, long[] qty, String side) {
+        List<OrderBookProcessor.Level> out = new ArrayList<>(px.length);
+        for (int i = 0; i < px.length && qty[i] > 0; i++) {
+            out.add(new OrderBookProcessor.Level(plain(scale.toPrice(px[i])), plain(scale.toSize(qty[i])), side));
+        }
+        return out;
+    }
+
+    /** Drops the padding zeros of the fixed scale, so "2500.30000000" reads as "2500.3". */
+    private static BigDecimal plain(BigDecimal value) {
+        return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+    }
+}
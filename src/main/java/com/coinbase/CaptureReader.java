@@ -0,0 +1,146 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader for files written by BookCaptureWriter. Records are
+ * decoded into a caller-owned Record so a whole file can be scanned without
+ * allocating per row. A zero capture time marks the unwritten tail of a
+ * memory-mapped file that was not closed cleanly.
+ */
+public class CaptureReader implements Closeable {
+
+    public static final class Record {
+        public long captureTimeMillis;
+        public long sequenceNum;
+        public long totalAskLots;
+        public long totalBidLots;
+        public String orderId;
+        public final long[] askPx = new long[BookCaptureWriter.DEPTH];
+        public final long[] askQty = new long[BookCaptureWriter.DEPTH];
+        public final long[] bidPx = new long[BookCaptureWriter.DEPTH];
+        public final long[] bidQty = new long[BookCaptureWriter.DEPTH];
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] orderIdBytes = new byte[BookCaptureWriter.ORDER_ID_BYTES];
+
+    private final String productId;
+    private final ProductScale scale;
+
+    public CaptureReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            buffer.limit(0);
+            if (!fill(BookCaptureWriter.HEADER_BYTES)) {
+                throw new IOException("Truncated capture header in " + file);
+            }
+            int start = buffer.position();
+            if (buffer.getLong() != BookCaptureWriter.MAGIC) {
+                throw new IOException("Not a capture file: " + file);
+            }
+            int version = buffer.getInt();
+            int recordBytes = buffer.getInt();
+            int depth = buffer.getInt();
+            if (version != BookCaptureWriter.VERSION
+                    || recordBytes != BookCaptureWriter.RECORD_BYTES
+                    || depth != BookCaptureWriter.DEPTH) {
+                throw new IOException("Unsupported capture layout in " + file);
+            }
+            this.scale = ProductScale.of(buffer.getInt(), buffer.getInt());
+            byte[] id = new byte[BookCaptureWriter.PRODUCT_ID_BYTES];
+            buffer.get(id);
+            this.productId = ascii(id);
+            buffer.position(start + BookCaptureWriter.HEADER_BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public ProductScale getScale() {
+        return scale;
+    }
+
+    /** Reads the next record into rec; false at end of file. */
+    public boolean next(Record rec) throws IOException {
+        if (!fill(BookCaptureWriter.RECORD_BYTES)) {
+            return false;
+        }
+        int start = buffer.position();
+        rec.captureTimeMillis = buffer.getLong();
+        if (rec.captureTimeMillis == 0L) {
+            buffer.position(start);
+            return false;
+        }
+        rec.sequenceNum = buffer.getLong();
+        rec.totalAskLots = buffer.getLong();
+        rec.totalBidLots = buffer.getLong();
+        buffer.get(orderIdBytes);
+        rec.orderId = ascii(orderIdBytes);
+        getLongs(rec.askPx);
+        getLongs(rec.askQty);
+        getLongs(rec.bidPx);
+        getLongs(rec.bidQty);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void getLongs(long[] into) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] = buffer.getLong();
+        }
+    }
+
+    private boolean fill(int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= needed;
+    }
+
+    private static String ascii(byte[] bytes) {
+        int len = 0;
+        while (len < bytes.length && bytes[len] != 0) {
+            len++;
+        }
+        return new String(bytes, 0, len, StandardCharsets.US_ASCII);
+    }
+}
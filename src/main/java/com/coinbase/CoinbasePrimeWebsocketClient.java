@@ -14,19 +14,49 @@
 
 package com.coinbase;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.net.http.WebSocket.Listener;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
+/**
+ * l2_data client for every product registered on a BookManager.
+ *
+ * start() runs a supervisor on the calling thread. A connection counts as
+ * lost on close, on error, or when nothing (frames or pongs) has arrived
+ * within LIVENESS_TIMEOUT_MILLIS, with a ping sent every
+ * HEARTBEAT_INTERVAL_MILLIS of quiet. Lost connections are re-established
+ * after a jittered exponential backoff.
+ *
+ * With a warm standby, a second authenticated connection keeps its own set
+ * of books in sync. If the primary is lost while the standby is in sync, the
+ * standby's books are adopted by the public BookManager in one step on the
+ * standby's applier thread and the standby becomes the primary, so readers
+ * see one jump to current state instead of an empty book while a new
+ * connection waits for snapshots. The old primary then reconnects as the
+ * new standby.
+ *
+ * With arbitration, two connections subscribe to the same products and feed
+ * one ring through a FeedArbiter, which applies each sequence_num from
+ * whichever connection delivers it first. Losing either connection leaves
+ * the books untouched while the other carries on. The shared ring always
+ * uses BLOCK backpressure, as read credits cannot be split between sockets.
+ */
+public class CoinbasePrimeWebsocketClient {
 
-public class CoinbasePrimeWebsocketClient implements Listener {
+    public enum Redundancy { NONE, WARM_STANDBY, ARBITRATED }
 
     private static final String URI_STRING = "wss://ws-feed.prime.coinbase.com";
 
@@ -38,100 +68,605 @@ public class CoinbasePrimeWebsocketClient implements Listener {
     private static final String CHANNEL    = "l2_data";
     private static final String PRODUCT_ID = "ETH-USD";
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int RING_CAPACITY = 1024;
+    private static final int MAX_BATCH     = 64;
 
-    private WebSocket webSocket;
-    private OrderBookProcessor processor;  
+    private static final long CONNECT_TIMEOUT_SECONDS    = 10L;
+    private static final long HEARTBEAT_INTERVAL_MILLIS  = 5_000L;
+    private static final long LIVENESS_TIMEOUT_MILLIS    = 15_000L;
+    private static final long SUPERVISOR_TICK_MILLIS     = 250L;
+    private static final long APPLIER_TASK_TIMEOUT_MILLIS = 5_000L;
+    private static final long BACKOFF_BASE_MILLIS        = 250L;
+    private static final long BACKOFF_MAX_MILLIS         = 30_000L;
 
-    private StringBuilder messageBuffer = new StringBuilder();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final BookManager bookManager;
+    private final BookManager standbyBooks;
+    private volatile FeedConnection primary;
+    private volatile FeedConnection standby;
+    private final FeedConnection mirror;
+    private final FeedArbiter arbiter;
+    private volatile FeedRecorder recorder;
+    private volatile Thread supervisor;
 
+    public CoinbasePrimeWebsocketClient() {
+        this(Redundancy.NONE);
+    }
+
+    /** The default ETH-USD client, with a BigDecimal book, and the given connection redundancy. */
+    public CoinbasePrimeWebsocketClient(Redundancy redundancy) {
+        this(redundancy, null);
+    }
+
+    /**
+     * The default ETH-USD client with the book in fixed-point mode at scale,
+     * or BigDecimal mode when scale is null.
+     */
+    public CoinbasePrimeWebsocketClient(Redundancy redundancy, ProductScale scale) {
+        this(new BookManager(), RING_CAPACITY, FramePipeline.Backpressure.CREDIT, redundancy);
+        bookManager.addProduct(PRODUCT_ID, scale);
+    }
+
+    /** Subscribes to every product registered on bookManager over one connection. */
+    public CoinbasePrimeWebsocketClient(BookManager bookManager) {
+        this(bookManager, RING_CAPACITY, FramePipeline.Backpressure.CREDIT);
+    }
+
+    /**
+     * Frames are queued in a ring of ringCapacity slots and applied to the books
+     * on a dedicated applier thread; backpressure decides how socket reads are paced.
+     */
+    public CoinbasePrimeWebsocketClient(BookManager bookManager,
+                                        int ringCapacity,
+                                        FramePipeline.Backpressure backpressure) {
+        this(bookManager, ringCapacity, backpressure, Redundancy.NONE);
+    }
+
+    /**
+     * As above, plus a second connection: under WARM_STANDBY with its own ring
+     * and applier, keeping a private copy of the books ready for failover;
+     * under ARBITRATED racing the first into a shared ring.
+     */
+    public CoinbasePrimeWebsocketClient(BookManager bookManager,
+                                        int ringCapacity,
+                                        FramePipeline.Backpressure backpressure,
+                                        Redundancy redundancy) {
+        this.bookManager = bookManager;
+        if (redundancy == Redundancy.ARBITRATED) {
+            BookApplier applier = new BookApplier(bookManager);
+            FramePipeline pipeline = new FramePipeline(
+                    ringCapacity, MAX_BATCH, FramePipeline.Backpressure.BLOCK, applier);
+            this.arbiter = new FeedArbiter(2, pipeline::offer);
+            this.primary = new FeedConnection(pipeline, applier, 0);
+            this.mirror = new FeedConnection(pipeline, applier, 1);
+            primary.peer = mirror;
+            mirror.peer = primary;
+        } else {
+            this.arbiter = null;
+            this.mirror = null;
+            this.primary = new FeedConnection(ringCapacity, backpressure, bookManager);
+        }
+        if (redundancy == Redundancy.WARM_STANDBY) {
+            this.standbyBooks = new BookManager();
+            this.standby = new FeedConnection(ringCapacity, backpressure, standbyBooks);
+            standbyBooks.setResubscriber(standby::resubscribe);
+        } else {
+            this.standbyBooks = null;
+            this.standby = null;
+        }
+        // Under arbitration both connections ask, so whichever is healthy delivers the snapshot.
+        bookManager.setResubscriber(mirror == null ? primary::resubscribe : productId -> {
+            primary.resubscribe(productId);
+            mirror.resubscribe(productId);
+        });
+    }
+
+    /** Connects and supervises the connection(s) until the calling thread is interrupted. */
     public void start() {
-        while (true) {
-            try {
-                connectAndListen();
-            } catch (Exception e) {
-                System.err.println("WebSocket connection lost. Reconnecting... " + e.getMessage());
-                try {
-                    Thread.sleep(2000L);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
+        supervisor = Thread.currentThread();
+        primary.pipeline.start();
+        if (standby != null) {
+            standby.pipeline.start();
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            FeedConnection p = primary;
+            if (p.checkLost(now)) {
+                bookManager.getMetrics().recordReconnect();
+                if (failover()) {
+                    continue;
                 }
+                System.err.println("WebSocket connection lost. Reconnecting... " + p.getLostReason());
+            }
+            if (!p.isOpen()) {
+                p.tryConnect(now);
+            }
+
+            FeedConnection s = standby;
+            if (s != null) {
+                if (s.checkLost(now)) {
+                    standbyBooks.getMetrics().recordReconnect();
+                    System.err.println("Standby WebSocket connection lost. Reconnecting... " + s.getLostReason());
+                }
+                if (!s.isOpen()) {
+                    standbyBooks.addProductsOf(bookManager);
+                    s.tryConnect(now);
+                }
+            }
+
+            if (mirror != null) {
+                if (mirror.checkLost(now)) {
+                    bookManager.getMetrics().recordReconnect();
+                    System.err.println("Second WebSocket connection lost. Reconnecting... " + mirror.getLostReason());
+                }
+                if (!mirror.isOpen()) {
+                    mirror.tryConnect(now);
+                }
+            }
+
+            try {
+                Thread.sleep(SUPERVISOR_TICK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
+        primary.abort();
+        if (standby != null) {
+            standby.abort();
+        }
+        if (mirror != null) {
+            mirror.abort();
+        }
     }
 
-    private void connectAndListen() throws InterruptedException, ExecutionException {
-        HttpClient client = HttpClient.newHttpClient();
+    /**
+     * Interrupts the supervisor, aborts the connection(s) and stops the
+     * appliers. Returns once no frame is being applied or recorded, so the
+     * recorder can be closed safely afterwards.
+     */
+    public void stop() {
+        Thread s = supervisor;
+        if (s != null) {
+            s.interrupt();
+        }
+        FeedConnection p = primary;
+        FeedConnection b = standby;
+        p.abort();
+        if (b != null) {
+            b.abort();
+        }
+        if (mirror != null) {
+            mirror.abort();
+        }
+        p.pipeline.stop();
+        if (b != null) {
+            b.pipeline.stop();
+        }
+    }
 
-        CompletableFuture<WebSocket> wsFuture = client.newWebSocketBuilder()
-                .buildAsync(URI.create(URI_STRING), this);
+    /**
+     * Promotes the standby once the primary is lost: the lost primary's
+     * applier stops writing to the public books, then the standby's applier
+     * adopts its books into them between two batches, so no reader sees a
+     * half-switched state and no frame of either feed is applied to the
+     * wrong books.
+     * @return false if there is no standby that is connected and in sync
+     */
+    private boolean failover() {
+        FeedConnection lost = primary;
+        FeedConnection next = standby;
+        if (next == null || !next.isOpen() || !standbyBooks.isInSync()
+                || !lost.pipeline.isRunning() || !next.pipeline.isRunning()) {
+            return false;
+        }
+        if (!handOver(lost.pipeline, () -> lost.applier.target = null)) {
+            return false;
+        }
+        boolean adopted = handOver(next.pipeline, () -> {
+            bookManager.adopt(standbyBooks);
+            next.applier.target = bookManager;
+            // Restart the recording from the adopted books, as the new feed's sequence numbers differ.
+            for (String snapshot : bookManager.snapshotMessages()) {
+                record(snapshot, System.nanoTime());
+            }
+        });
+        if (!adopted) {
+            // Stopped or stuck mid-failover: hand the public books back rather than leave them unfed.
+            lost.applier.target = bookManager;
+            return false;
+        }
+        lost.applier.target = standbyBooks;
 
-        this.webSocket = wsFuture.get(); 
+        bookManager.setResubscriber(next::resubscribe);
+        standbyBooks.setResubscriber(lost::resubscribe);
+        primary = next;
+        standby = lost;
+        bookManager.getMetrics().recordFailover();
+        System.err.println("WebSocket connection lost (" + lost.getLostReason()
+                + "); failed over to the standby connection.");
+        return true;
+    }
 
-        String authMessage = AuthUtils.createAuthMessage(
-            CHANNEL, PRODUCT_ID, PASSPHRASE, ACCESS_KEY, SECRET_KEY, SVC_ACCOUNTID
-        );
-        webSocket.sendText(authMessage, true);
+    /**
+     * Runs a failover step on pipeline's applier, giving up if the pipeline
+     * stops or stalls rather than hanging the supervisor.
+     * @return true if task ran; false if it did not and now never will
+     */
+    private static boolean handOver(FramePipeline pipeline, Runnable task) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        CompletableFuture<Void> done = pipeline.runOnApplier(() -> {
+            if (claimed.compareAndSet(false, true)) {
+                task.run();
+            }
+        });
+        try {
+            done.get(APPLIER_TASK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Failover step did not complete on the applier: " + e);
+        }
+        if (claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        // Already running on the applier; let it finish so the step is never half done.
+        done.handle((result, error) -> null).join();
+        return !done.isCompletedExceptionally();
+    }
 
-        while (!Thread.currentThread().isInterrupted()) {
-            Thread.sleep(10000L);
+    /**
+     * Feeds recorded frames through the same ring and applier as the live
+     * socket, instead of connecting, and returns once all of them are applied.
+     * @param speed 1.0 for original speed, FeedReplay.AS_FAST_AS_POSSIBLE for no pacing
+     * @return number of frames replayed
+     */
+    public long replay(List<Path> files, double speed) throws IOException {
+        FramePipeline pipeline = primary.pipeline;
+        pipeline.start();
+        pipeline.runOnApplier(bookManager::resetSequences).join();
+        long frames = new FeedReplay(files).replay(speed, pipeline::offer);
+        while (pipeline.getDepth() > 0) {
+            LockSupport.parkNanos(100_000L);
         }
+        return frames;
+    }
+
+    /** Records every complete frame applied to the public books from now on; null stops recording. */
+    public void setRecorder(FeedRecorder recorder) {
+        this.recorder = recorder;
     }
 
-    @Override
-    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+    private void record(String frame, long receivedNanos) {
+        FeedRecorder target = recorder;
+        if (target == null) return;
         try {
+            target.record(frame, receivedNanos);
+        } catch (IOException e) {
+            System.err.println("Failed to record frame, recording stopped: " + e.getMessage());
+            recorder = null;
+        }
+    }
+
+    /** One WebSocket with its own ring and applier, feeding whichever books its applier targets. */
+    private final class FeedConnection implements Listener {
+
+        final FramePipeline pipeline;
+        final BookApplier applier;
+        // Arbitrated connections only: this connection's feed index and the other connection.
+        private final int feed;
+        FeedConnection peer;
+        private final Backoff backoff = new Backoff(BACKOFF_BASE_MILLIS, BACKOFF_MAX_MILLIS);
+        private final StringBuilder messageBuffer = new StringBuilder();
+
+        private volatile WebSocket webSocket;
+        private volatile boolean open;
+        private volatile String lostReason;
+        private volatile long lastReceivedNanos;
+        private volatile boolean receivedFrame;
+        private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+
+        // Supervisor thread only.
+        private long connectedNanos;
+        private long lastPingNanos;
+        private long nextAttemptNanos = System.nanoTime();
+
+        FeedConnection(int ringCapacity, FramePipeline.Backpressure backpressure, BookManager books) {
+            this.applier = new BookApplier(books);
+            this.pipeline = new FramePipeline(ringCapacity, MAX_BATCH, backpressure, applier);
+            this.feed = -1;
+        }
+
+        /** A connection sharing pipeline with its peer, offering frames through the arbiter as feed. */
+        FeedConnection(FramePipeline pipeline, BookApplier applier, int feed) {
+            this.applier = applier;
+            this.pipeline = pipeline;
+            this.feed = feed;
+        }
+
+        boolean isOpen() {
+            return open;
+        }
+
+        String getLostReason() {
+            return lostReason;
+        }
+
+        /**
+         * Pings when the connection has been quiet for a heartbeat interval and
+         * aborts it once quiet past the liveness timeout.
+         * @return true the first time the connection is seen lost
+         */
+        boolean checkLost(long now) {
+            if (!open) {
+                if (connectedNanos == 0L) return false;
+                connectedNanos = 0L;
+                scheduleReconnect(now);
+                return true;
+            }
+            if (receivedFrame) {
+                backoff.reset();
+            }
+            long quiet = now - lastReceivedNanos;
+            if (quiet > TimeUnit.MILLISECONDS.toNanos(LIVENESS_TIMEOUT_MILLIS)) {
+                lostReason = "no data for " + TimeUnit.NANOSECONDS.toMillis(quiet) + " ms";
+                abort();
+                return checkLost(now);
+            }
+            if (quiet > TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_INTERVAL_MILLIS)
+                    && now - lastPingNanos > TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_INTERVAL_MILLIS)) {
+                lastPingNanos = now;
+                enqueue(ws -> ws.sendPing(ByteBuffer.allocate(0)));
+            }
+            return false;
+        }
+
+        /** Connects and subscribes once the backoff delay has passed; failures schedule the next attempt. */
+        void tryConnect(long now) {
+            if (now - nextAttemptNanos < 0) return;
+            BookManager books = applier.target;
+            try {
+                synchronized (this) {
+                    lastSend = CompletableFuture.completedFuture(null);
+                }
+                httpClient.newWebSocketBuilder()
+                        .buildAsync(URI.create(URI_STRING), this)
+                        .get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                abort();
+                System.err.println("WebSocket connect failed: " + e);
+                scheduleReconnect(System.nanoTime());
+                return;
+            }
+            long connected = System.nanoTime();
+            connectedNanos = connected;
+            lastPingNanos = connected;
+            lastReceivedNanos = connected;
+            lostReason = null;
+            receivedFrame = false;
+            open = true;
+            books.getMetrics().recordConnect();
+            send(books.createSubscribeMessage(PASSPHRASE, ACCESS_KEY, SECRET_KEY, SVC_ACCOUNTID));
+        }
+
+        private void scheduleReconnect(long now) {
+            nextAttemptNanos = now + TimeUnit.MILLISECONDS.toNanos(backoff.nextDelayMillis());
+        }
+
+        void abort() {
+            open = false;
+            WebSocket ws = webSocket;
+            if (ws != null) {
+                ws.abort();
+            }
+        }
+
+        /** Asks for a fresh snapshot of one product without touching the others. */
+        void resubscribe(String productId) {
+            List<String> productIds = List.of(productId);
+            send(AuthUtils.createUnsubscribeMessage(
+                CHANNEL, productIds, PASSPHRASE, ACCESS_KEY, SECRET_KEY, SVC_ACCOUNTID
+            ));
+            send(AuthUtils.createAuthMessage(
+                CHANNEL, productIds, PASSPHRASE, ACCESS_KEY, SECRET_KEY, SVC_ACCOUNTID
+            ));
+        }
+
+        private void send(String text) {
+            enqueue(ws -> ws.sendText(text, true));
+        }
+
+        /** Queues a send behind any still in flight, as WebSocket allows only one at a time. */
+        private synchronized void enqueue(Function<WebSocket, CompletableFuture<WebSocket>> op) {
+            WebSocket ws = this.webSocket;
+            if (ws == null) return;
+            lastSend = lastSend
+                    .handle((result, error) -> null)
+                    .thenCompose(ignored -> op.apply(ws))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            System.err.println("Failed to send to WebSocket: " + error.getMessage());
+                        }
+                    });
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            this.webSocket = webSocket;
+            messageBuffer.setLength(0);
+            lastReceivedNanos = System.nanoTime();
+            BookManager books = applier.target;
+            // An arbitrated peer that is still up keeps the books and sequence position valid.
+            if (books != null && (peer == null || !peer.isOpen())) {
+                // The trackers belong to the applier; the arbiter is shared by the listeners and locks itself.
+                pipeline.runOnApplier(books::resetSequences);
+                if (arbiter != null) {
+                    arbiter.reset();
+                }
+            }
+            pipeline.setCreditSink(n -> webSocket.request(n));
+            webSocket.request(pipeline.initialCredits());
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            // Callbacks from a socket this connection has already replaced are dropped.
+            if (webSocket != this.webSocket) return null;
+            lastReceivedNanos = System.nanoTime();
             messageBuffer.append(data);
 
             if (last) {
                 String fullMessage = messageBuffer.toString();
-                messageBuffer.setLength(0); 
-                
-                JsonNode node = MAPPER.readTree(fullMessage);
-
-                if ("l2_data".equals(node.path("channel").asText()) && node.has("events")) {
-                    JsonNode eventsNode = node.get("events");
-                    
-                    if (eventsNode.size() > 0) {
-                        String eventType = eventsNode.get(0).path("type").asText();
-                        
-                        if ("snapshot".equals(eventType)) {
-                            this.processor = new OrderBookProcessor(fullMessage);
-                            System.out.println("Snapshot received.");
-                        } else {
-                            if (this.processor != null) {
-                                this.processor.applyUpdate(fullMessage);
-                            }
-                        }
-                    }
+                messageBuffer.setLength(0);
+                receivedFrame = true;
+                if (feed >= 0) {
+                    arbiter.offer(feed, fullMessage);
+                } else {
+                    pipeline.offer(fullMessage);
                 }
             }
 
-        } catch (JsonProcessingException e) {
-            System.err.println("Failed to parse JSON from WebSocket: " + e.getMessage());
+            // Under CREDIT a complete frame's credit comes back once the applier drains it.
+            if (!last || pipeline.getBackpressure() != FramePipeline.Backpressure.CREDIT) {
+                webSocket.request(1);
+            }
+            return CompletableFuture.completedFuture(null);
         }
 
-        webSocket.request(1);
-        return CompletableFuture.completedFuture(null);
-    }
+        @Override
+        public CompletionStage<?> onPing(WebSocket webSocket, ByteBuffer message) {
+            if (webSocket == this.webSocket) {
+                lastReceivedNanos = System.nanoTime();
+            }
+            return Listener.super.onPing(webSocket, message);
+        }
 
-    @Override
-    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
-        System.err.println("WebSocket closed: " + statusCode + " / " + reason);
-        return Listener.super.onClose(webSocket, statusCode, reason);
+        @Override
+        public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+            if (webSocket == this.webSocket) {
+                lastReceivedNanos = System.nanoTime();
+            }
+            return Listener.super.onPong(webSocket, message);
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            System.err.println("WebSocket closed: " + statusCode + " / " + reason);
+            if (webSocket == this.webSocket) {
+                lostReason = "closed " + statusCode + " / " + reason;
+                open = false;
+            }
+            return Listener.super.onClose(webSocket, statusCode, reason);
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            System.err.println("WebSocket error: " + error.getMessage());
+            if (webSocket == this.webSocket) {
+                lostReason = "error " + error.getMessage();
+                open = false;
+            }
+            Listener.super.onError(webSocket, error);
+        }
     }
 
-    @Override
-    public void onError(WebSocket webSocket, Throwable error) {
-        System.err.println("WebSocket error: " + error.getMessage());
-        Listener.super.onError(webSocket, error);
+    /**
+     * Runs on a connection's applier thread; each drained batch is coalesced
+     * and published once per book. Frames go to the books targeted when the
+     * batch started, and are dropped while there is no target.
+     */
+    private final class BookApplier implements FramePipeline.FrameHandler {
+
+        volatile BookManager target;
+        private BookManager batchTarget;
+
+        BookApplier(BookManager target) {
+            this.target = target;
+        }
+
+        @Override
+        public void onBatchStart() {
+            batchTarget = target;
+            if (batchTarget != null) {
+                batchTarget.beginBatch();
+            }
+        }
+
+        @Override
+        public void onFrame(String frame) {
+            onFrame(frame, System.nanoTime());
+        }
+
+        @Override
+        public void onFrame(String frame, long receivedNanos) {
+            BookManager books = batchTarget;
+            if (books == null) return;
+            if (books == bookManager) {
+                record(frame, receivedNanos);
+            }
+            try {
+                String snapshotProduct = books.onMessage(frame, receivedNanos);
+                if (snapshotProduct != null) {
+                    System.out.println((books == bookManager ? "Snapshot" : "Standby snapshot")
+                            + " received for " + snapshotProduct + ".");
+                }
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Failed to parse JSON from WebSocket: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onBatchEnd() {
+            if (batchTarget != null) {
+                batchTarget.endBatch();
+                batchTarget = null;
+            }
+        }
     }
 
+    /** The first product's live book, or null until its first snapshot has been applied. */
     public OrderBookProcessor getProcessor() {
-        return processor;
+        List<String> productIds = bookManager.getProductIds();
+        return productIds.isEmpty() ? null : getProcessor(productIds.get(0));
+    }
+
+    /** The live book for productId, or null until its first snapshot has been applied. */
+    public OrderBookProcessor getProcessor(String productId) {
+        OrderBookProcessor processor = bookManager.getBook(productId);
+        return processor != null && processor.hasSnapshot() ? processor : null;
+    }
+
+    public BookManager getBookManager() {
+        return bookManager;
+    }
+
+    /** Exposes queue depth and high-water mark of the current primary connection's frame ring. */
+    public FramePipeline getFramePipeline() {
+        return primary.pipeline;
+    }
+
+    /**
+     * Publishes the manager's metrics plus the primary frame ring's depth
+     * under "feed", and whether the warm standby is ready to take over.
+     */
+    public void bindMetrics(MetricsRegistry registry) {
+        bookManager.bindMetrics(registry);
+        registry.gauge("feed", "ringDepth", () -> primary.pipeline.getDepth());
+        registry.gauge("feed", "ringHighWaterMark", () -> primary.pipeline.getHighWaterMark());
+        registry.gauge("feed", "standbyInSync", () -> {
+            FeedConnection s = standby;
+            return s != null && s.isOpen() && standbyBooks.isInSync() ? 1 : 0;
+        });
+        if (arbiter != null) {
+            arbiter.bindTo(registry, "arbiter");
+        }
     }
 
-    public void onMessage(String message) {
-        messageBuffer.append(message);
+    /** Per-connection win rates and lag under ARBITRATED, otherwise null. */
+    public FeedArbiter getArbiter() {
+        return arbiter;
     }
 }
@@ -0,0 +1,215 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * BigDecimal-keyed side of the book, kept permanently ordered best-first.
+ * Insert/update/delete are O(log n); best level and running total are O(1).
+ * Depth and cost queries walk the levels they cover; ScaledBookSide answers
+ * them from prefix sums instead. Depth bands are the exception: each keeps
+ * its sum up to date on every apply and, when mid moves, walks only the
+ * levels its threshold crosses.
+ */
+final class DecimalBookSide extends BookSide {
+
+    private final Comparator<BigDecimal> order;
+    private final TreeMap<BigDecimal, OrderBookProcessor.Level> levels;
+    private final TreeMap<BigDecimal, OrderBookProcessor.Level> pending;
+
+    private BigDecimal totalQty = BigDecimal.ZERO;
+    private OrderBookProcessor.Level best;
+    private boolean clearStaged;
+
+    // Per depth band: the threshold its sum was last taken at (null before the first), and the sum.
+    private BigDecimal[] bandPx = new BigDecimal[0];
+    private BigDecimal[] bandSum = new BigDecimal[0];
+
+    DecimalBookSide(boolean bid) {
+        this.order = bid ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        this.levels = new TreeMap<>(order);
+        this.pending = new TreeMap<>(order);
+    }
+
+    @Override
+    void clear() {
+        levels.clear();
+        pending.clear();
+        totalQty = BigDecimal.ZERO;
+        best = null;
+        clearStaged = false;
+        resetBands();
+    }
+
+    @Override
+    void discardStaged() {
+        pending.clear();
+        clearStaged = false;
+    }
+
+    @Override
+    void stageClear() {
+        pending.clear();
+        clearStaged = true;
+    }
+
+    @Override
+    void apply(OrderBookProcessor.Level lvl) {
+        OrderBookProcessor.Level prev;
+        if (lvl.qty.signum() > 0) {
+            prev = levels.put(lvl.px, lvl);
+            totalQty = totalQty.add(lvl.qty);
+            if (best == null || order.compare(lvl.px, best.px) <= 0) {
+                best = lvl;
+            }
+        } else {
+            prev = levels.remove(lvl.px);
+            if (prev != null && prev == best) {
+                best = levels.isEmpty() ? null : levels.firstEntry().getValue();
+            }
+        }
+        if (prev != null) {
+            totalQty = totalQty.subtract(prev.qty);
+        }
+        for (int b = 0; b < bandPx.length; b++) {
+            if (bandPx[b] != null && order.compare(lvl.px, bandPx[b]) <= 0) {
+                BigDecimal sum = lvl.qty.signum() > 0 ? bandSum[b].add(lvl.qty) : bandSum[b];
+                bandSum[b] = prev != null ? sum.subtract(prev.qty) : sum;
+            }
+        }
+    }
+
+    @Override
+    void stage(OrderBookProcessor.Level lvl) {
+        pending.put(lvl.px, lvl);
+    }
+
+    @Override
+    void flush() {
+        if (clearStaged) {
+            levels.clear();
+            totalQty = BigDecimal.ZERO;
+            best = null;
+            clearStaged = false;
+            resetBands();
+        }
+        for (OrderBookProcessor.Level lvl : pending.values()) {
+            apply(lvl);
+        }
+        pending.clear();
+    }
+
+    @Override
+    int depth() {
+        return levels.size();
+    }
+
+    @Override
+    OrderBookProcessor.Level best() {
+        return best;
+    }
+
+    @Override
+    BigDecimal totalQty() {
+        return totalQty;
+    }
+
+    @Override
+    List<OrderBookProcessor.Level> top(int n) {
+        List<OrderBookProcessor.Level> out = new ArrayList<>(Math.max(0, Math.min(n, levels.size())));
+        Iterator<OrderBookProcessor.Level> it = levels.values().iterator();
+        while (out.size() < n && it.hasNext()) {
+            out.add(it.next());
+        }
+        return out;
+    }
+
+    @Override
+    BigDecimal topQty(int n) {
+        BigDecimal sum = BigDecimal.ZERO;
+        Iterator<OrderBookProcessor.Level> it = levels.values().iterator();
+        for (int i = 0; i < n && it.hasNext(); i++) {
+            sum = sum.add(it.next().qty);
+        }
+        return sum;
+    }
+
+    @Override
+    BigDecimal qtyAt(BigDecimal px) {
+        OrderBookProcessor.Level lvl = levels.get(px);
+        return lvl == null ? BigDecimal.ZERO : lvl.qty;
+    }
+
+    @Override
+    BigDecimal qtyAtOrBetter(BigDecimal px) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (OrderBookProcessor.Level lvl : levels.headMap(px, true).values()) {
+            sum = sum.add(lvl.qty);
+        }
+        return sum;
+    }
+
+    @Override
+    BigDecimal bandQty(int band, BigDecimal px) {
+        if (band >= bandPx.length) {
+            bandPx = Arrays.copyOf(bandPx, band + 1);
+            bandSum = Arrays.copyOf(bandSum, band + 1);
+        }
+        BigDecimal from = bandPx[band];
+        BigDecimal sum;
+        if (from == null) {
+            sum = qtyAtOrBetter(px);
+        } else {
+            sum = bandSum[band];
+            int moved = order.compare(px, from);
+            if (moved < 0) {
+                for (OrderBookProcessor.Level lvl : levels.subMap(px, false, from, true).values()) {
+                    sum = sum.subtract(lvl.qty);
+                }
+            } else if (moved > 0) {
+                for (OrderBookProcessor.Level lvl : levels.subMap(from, false, px, true).values()) {
+                    sum = sum.add(lvl.qty);
+                }
+            }
+        }
+        bandPx[band] = px;
+        bandSum[band] = sum;
+        return sum;
+    }
+
+    private void resetBands() {
+        Arrays.fill(bandPx, null);
+    }
+
+    @Override
+    BigDecimal costToFill(BigDecimal qty) {
+        BigDecimal remaining = qty;
+        BigDecimal cost = BigDecimal.ZERO;
+        for (OrderBookProcessor.Level lvl : levels.values()) {
+            if (remaining.signum() <= 0) break;
+            BigDecimal take = lvl.qty.min(remaining);
+            cost = cost.add(lvl.px.multiply(take));
+            remaining = remaining.subtract(take);
+        }
+        return remaining.signum() > 0 ? null : cost;
+    }
+}
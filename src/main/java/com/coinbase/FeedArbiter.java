@@ -0,0 +1,220 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Merges redundant connections carrying the same l2_data stream: each frame
+ * is passed on from whichever feed delivers its sequence_num first, and every
+ * later copy, or any frame older than the last one passed on, is dropped.
+ * A feed that falls behind therefore never holds the book back; a sequence
+ * missed by every feed still shows up as a gap downstream.
+ *
+ * The high-water mark is kept per product_id, taken from the frame's first
+ * event, so a frame is only ever compared with the same product's frames
+ * and one product running ahead never causes another's to be dropped.
+ *
+ * Per feed it counts wins (copies passed on) and losses, and for losses
+ * records how long after the winning copy they arrived. Frames without a
+ * sequence_num, such as subscription acknowledgements, are passed through
+ * from every feed.
+ *
+ * offer may be called from each feed's listener thread; frames reach the
+ * sink one at a time, in the order they were passed on. The winner is
+ * decided under the arbiter's lock but handed to the sink after releasing
+ * it, so while the sink blocks, e.g. on a full ring, the other feed's
+ * losing copies are still dropped at once.
+ */
+public class FeedArbiter {
+
+    // Recent winning arrivals kept to measure how far behind the losing copies are.
+    private static final int WINDOW = 4096;
+    private static final String SEQUENCE_FIELD = "\"sequence_num\":";
+    private static final String PRODUCT_FIELD = "\"product_id\":";
+
+    private final Consumer<String> sink;
+    private final AtomicLong[] wins;
+    private final AtomicLong[] losses;
+    private final LatencyHistogram[] lag;
+
+    private final long[] windowSequence = new long[WINDOW];
+    private final String[] windowProduct = new String[WINDOW];
+    private final long[] windowNanos = new long[WINDOW];
+    private final Map<String, long[]> lastSequenceNums = new HashMap<>();
+    private long nextTicket;
+
+    // Winners take a ticket under the lock and reach the sink in ticket order.
+    private final Object sinkTurn = new Object();
+    private long servedTicket;
+
+    public FeedArbiter(int feeds, Consumer<String> sink) {
+        if (feeds < 1) {
+            throw new IllegalArgumentException("feeds must be positive");
+        }
+        this.sink = sink;
+        this.wins = new AtomicLong[feeds];
+        this.losses = new AtomicLong[feeds];
+        this.lag = new LatencyHistogram[feeds];
+        for (int i = 0; i < feeds; i++) {
+            wins[i] = new AtomicLong();
+            losses[i] = new AtomicLong();
+            lag[i] = new LatencyHistogram();
+        }
+        Arrays.fill(windowSequence, -1L);
+    }
+
+    /**
+     * Offers a complete frame received on feed.
+     * @return true if it was passed to the sink, false if another feed won it
+     */
+    public boolean offer(int feed, String frame) {
+        long sequenceNum = sequenceNumOf(frame);
+        String productId = sequenceNum < 0 ? null : productIdOf(frame);
+        long now = System.nanoTime();
+        long ticket;
+        synchronized (this) {
+            ticket = sequenceNum < 0 ? nextTicket++ : arbitrate(feed, sequenceNum, productId, now);
+        }
+        if (ticket < 0) {
+            return false;
+        }
+        passOn(ticket, frame);
+        return true;
+    }
+
+    /** Records a sequenced copy; the winner's ticket, or -1 if another feed won it. Caller holds the lock. */
+    private long arbitrate(int feed, long sequenceNum, String productId, long now) {
+        long[] last = lastSequenceNums.computeIfAbsent(productId, p -> new long[] {-1L});
+        int slot = (int) ((sequenceNum * 31 + productId.hashCode()) & (WINDOW - 1));
+        if (sequenceNum > last[0]) {
+            last[0] = sequenceNum;
+            windowSequence[slot] = sequenceNum;
+            windowProduct[slot] = productId;
+            windowNanos[slot] = now;
+            wins[feed].lazySet(wins[feed].get() + 1);
+            return nextTicket++;
+        }
+        if (windowSequence[slot] == sequenceNum && productId.equals(windowProduct[slot])) {
+            lag[feed].record(now - windowNanos[slot]);
+        }
+        losses[feed].lazySet(losses[feed].get() + 1);
+        return -1L;
+    }
+
+    /** Hands frame to the sink once every earlier ticket has been, without holding the arbiter's lock. */
+    private void passOn(long ticket, String frame) {
+        boolean interrupted = false;
+        synchronized (sinkTurn) {
+            while (servedTicket != ticket) {
+                try {
+                    sinkTurn.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;  // the ticket must still be served, or every later one waits forever
+                }
+            }
+        }
+        try {
+            sink.accept(frame);
+        } finally {
+            synchronized (sinkTurn) {
+                servedTicket++;
+                sinkTurn.notifyAll();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Forgets the sequence position, e.g. once every feed has reconnected and numbering restarts. */
+    public synchronized void reset() {
+        lastSequenceNums.clear();
+        Arrays.fill(windowSequence, -1L);
+        Arrays.fill(windowProduct, null);
+    }
+
+    public int getFeedCount() {
+        return wins.length;
+    }
+
+    /** Frames feed delivered first. */
+    public long getWins(int feed) {
+        return wins[feed].get();
+    }
+
+    /** Frames feed delivered after another feed, or too late to apply. */
+    public long getLosses(int feed) {
+        return losses[feed].get();
+    }
+
+    /** Share of sequenced frames feed delivered first, 0 before any. */
+    public double getWinRate(int feed) {
+        long w = getWins(feed);
+        long total = w + getLosses(feed);
+        return total == 0 ? 0.0 : (double) w / total;
+    }
+
+    /** How long after the winning copy feed's losing copies arrived. */
+    public LatencyHistogram getLag(int feed) {
+        return lag[feed];
+    }
+
+    /** Publishes wins, win rate and lag percentiles per feed, e.g. feed0WinRate, under group. */
+    public void bindTo(MetricsRegistry registry, String group) {
+        for (int i = 0; i < wins.length; i++) {
+            int feed = i;
+            String prefix = "feed" + i;
+            registry.gauge(group, prefix + "Wins", () -> getWins(feed));
+            registry.gauge(group, prefix + "Losses", () -> getLosses(feed));
+            registry.gauge(group, prefix + "WinRate", () -> getWinRate(feed));
+            registry.gauge(group, prefix + "LagP50Micros", () -> lag[feed].snapshot().getValueAtPercentile(50.0) / 1_000.0);
+            registry.gauge(group, prefix + "LagP99Micros", () -> lag[feed].snapshot().getValueAtPercentile(99.0) / 1_000.0);
+            registry.gauge(group, prefix + "LagMaxMicros", () -> lag[feed].snapshot().getMax() / 1_000.0);
+        }
+    }
+
+    /** The top-level sequence_num of a frame, or -1 if it has none; scans without parsing the JSON. */
+    static long sequenceNumOf(String frame) {
+        int at = frame.indexOf(SEQUENCE_FIELD);
+        if (at < 0) return -1L;
+        int i = at + SEQUENCE_FIELD.length();
+        int n = frame.length();
+        while (i < n && frame.charAt(i) == ' ') {
+            i++;
+        }
+        long value = 0;
+        int start = i;
+        for (; i < n; i++) {
+            char c = frame.charAt(i);
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+        }
+        return i > start ? value : -1L;
+    }
+
+    /** The product_id of a frame's first event, or "" if it has none; scans without parsing the JSON. */
+    static String productIdOf(String frame) {
+        int at = frame.indexOf(PRODUCT_FIELD);
+        if (at < 0) return "";
+        int open = frame.indexOf('"', at + PRODUCT_FIELD.length());
+        int close = open < 0 ? -1 : frame.indexOf('"', open + 1);
+        return close < 0 ? "" : frame.substring(open + 1, close);
+    }
+}
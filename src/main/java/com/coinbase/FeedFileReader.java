@@ -0,0 +1,113 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped sequential reader of one FeedRecorder file that can also be
+ * positioned at any record offset. A record cut short by a crash ends the file.
+ */
+final class FeedFileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buf;
+    private byte[] bytes = new byte[64 * 1024];
+
+    private long recordOffset;
+    private long recordedNanos;
+    private String frame;
+
+    FeedFileReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.remaining() < FeedRecorder.HEADER_BYTES || buf.getLong() != FeedRecorder.MAGIC) {
+                throw new IOException("Not a feed recording: " + file);
+            }
+            int version = buf.getInt();
+            int recordHeaderBytes = buf.getInt();
+            if (version != FeedRecorder.VERSION || recordHeaderBytes != FeedRecorder.RECORD_HEADER_BYTES) {
+                throw new IOException("Unsupported feed recording layout in " + file);
+            }
+            buf.position(FeedRecorder.HEADER_BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Reads the record at the current position; false at the end of the file. */
+    boolean next() {
+        if (buf.remaining() < FeedRecorder.RECORD_HEADER_BYTES) {
+            return false;
+        }
+        int start = buf.position();
+        long recorded = buf.getLong();
+        int len = buf.getInt();
+        if (recorded == 0L || len < 0 || len > buf.remaining()) {
+            buf.position(start);
+            return false;
+        }
+        if (bytes.length < len) {
+            bytes = new byte[Integer.highestOneBit(len) << 1];
+        }
+        buf.get(bytes, 0, len);
+        recordOffset = start;
+        recordedNanos = recorded;
+        frame = new String(bytes, 0, len, StandardCharsets.UTF_8);
+        return true;
+    }
+
+    /** Offset of the next record to read. */
+    long position() {
+        return buf.position();
+    }
+
+    /** Positions at a record offset previously returned by position or getRecordOffset. */
+    void position(long offset) {
+        if (offset < FeedRecorder.HEADER_BYTES || offset > buf.limit()) {
+            throw new IllegalArgumentException("Offset " + offset + " outside the recording");
+        }
+        buf.position((int) offset);
+    }
+
+    /** Offset of the record last read. */
+    long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /** Receive time, in epoch nanoseconds, of the record last read. */
+    long getRecordedNanos() {
+        return recordedNanos;
+    }
+
+    String getFrame() {
+        return frame;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
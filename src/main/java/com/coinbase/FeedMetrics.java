@@ -0,0 +1,260 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for one feed connection.
+ *
+ * The record methods are called by the feed thread and never lock: counters
+ * are single-writer and published with lazySet, histograms are LatencyHistograms.
+ * Rates and percentiles are reported per window: the first read after
+ * windowMillis closes the current window and starts the next, so readers
+ * should poll at least that often.
+ */
+public class FeedMetrics {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 10_000L;
+
+    private final LatencyHistogram receiptToApplied = new LatencyHistogram();
+    private final LatencyHistogram parse = new LatencyHistogram();
+    private final LatencyHistogram apply = new LatencyHistogram();
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong levels = new AtomicLong();
+    private final AtomicLong parseFailures = new AtomicLong();
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    private final long windowNanos;
+
+    // Reader side, guarded by this.
+    private long windowStart;
+    private long windowMessages;
+    private long windowLevels;
+    private LatencyHistogram.Snapshot windowReceiptToApplied = LatencyHistogram.Snapshot.EMPTY;
+    private LatencyHistogram.Snapshot windowParse = LatencyHistogram.Snapshot.EMPTY;
+    private LatencyHistogram.Snapshot windowApply = LatencyHistogram.Snapshot.EMPTY;
+    private Window lastWindow;
+
+    public FeedMetrics() {
+        this(DEFAULT_WINDOW_MILLIS);
+    }
+
+    public FeedMetrics(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.windowStart = System.nanoTime();
+        this.lastWindow = new Window(0L, 0L, 0L,
+                LatencyHistogram.Snapshot.EMPTY, LatencyHistogram.Snapshot.EMPTY, LatencyHistogram.Snapshot.EMPTY);
+    }
+
+    // -------------------- FEED THREAD -------------------- //
+
+    /** One frame decoded in parseNanos, delivering levelCount levels. */
+    void recordMessage(long levelCount, long parseNanos) {
+        messages.lazySet(messages.get() + 1);
+        levels.lazySet(levels.get() + levelCount);
+        parse.record(parseNanos);
+    }
+
+    /** Staged levels flushed and views published in applyNanos. */
+    void recordApply(long applyNanos) {
+        apply.record(applyNanos);
+    }
+
+    /** A frame received at receivedNanos is visible in the books as of appliedNanos. */
+    void recordApplied(long receivedNanos, long appliedNanos) {
+        receiptToApplied.record(appliedNanos - receivedNanos);
+    }
+
+    void recordParseFailure() {
+        parseFailures.lazySet(parseFailures.get() + 1);
+    }
+
+    // Connection events come from the connecting thread, not the feed thread.
+
+    void recordConnect() {
+        connects.incrementAndGet();
+    }
+
+    void recordReconnect() {
+        reconnects.incrementAndGet();
+    }
+
+    void recordFailover() {
+        failovers.incrementAndGet();
+    }
+
+    // -------------------- READERS -------------------- //
+
+    /** Frames handed to the manager, l2_data or not. */
+    public long getMessages() {
+        return messages.get();
+    }
+
+    /** Price levels decoded from those frames. */
+    public long getLevels() {
+        return levels.get();
+    }
+
+    /** Frames that could not be decoded or applied. */
+    public long getParseFailures() {
+        return parseFailures.get();
+    }
+
+    public long getConnects() {
+        return connects.get();
+    }
+
+    /** Times the connection was lost and retried. */
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    /** Times the books were taken over from the warm standby connection. */
+    public long getFailovers() {
+        return failovers.get();
+    }
+
+    /** From a frame being queued by the socket listener to its book publishing it. */
+    public LatencyHistogram getReceiptToApplied() {
+        return receiptToApplied;
+    }
+
+    /**
+     * Time inside BookManager.onMessage: decoding and staging when batched,
+     * decoding and applying otherwise.
+     */
+    public LatencyHistogram getParse() {
+        return parse;
+    }
+
+    /** Time inside BookManager.endBatch: flushing staged levels and publishing views. */
+    public LatencyHistogram getApply() {
+        return apply;
+    }
+
+    /** The last complete window, closing the current one if windowMillis has passed. */
+    public synchronized Window getWindow() {
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos) {
+            long msgs = messages.get();
+            long lvls = levels.get();
+            LatencyHistogram.Snapshot r2a = receiptToApplied.snapshot();
+            LatencyHistogram.Snapshot p = parse.snapshot();
+            LatencyHistogram.Snapshot a = apply.snapshot();
+
+            lastWindow = new Window(now - windowStart,
+                    msgs - windowMessages,
+                    lvls - windowLevels,
+                    r2a.since(windowReceiptToApplied),
+                    p.since(windowParse),
+                    a.since(windowApply));
+
+            windowStart = now;
+            windowMessages = msgs;
+            windowLevels = lvls;
+            windowReceiptToApplied = r2a;
+            windowParse = p;
+            windowApply = a;
+        }
+        return lastWindow;
+    }
+
+    /** Publishes the counters and windowed rates and percentiles under group. */
+    public void bindTo(MetricsRegistry registry, String group) {
+        registry.gauge(group, "messages", this::getMessages);
+        registry.gauge(group, "levels", this::getLevels);
+        registry.gauge(group, "parseFailures", this::getParseFailures);
+        registry.gauge(group, "connects", this::getConnects);
+        registry.gauge(group, "reconnects", this::getReconnects);
+        registry.gauge(group, "failovers", this::getFailovers);
+        registry.gauge(group, "messagesPerSecond", () -> getWindow().getMessagesPerSecond());
+        registry.gauge(group, "levelsPerSecond", () -> getWindow().getLevelsPerSecond());
+        registry.gauge(group, "receiptToAppliedP50Micros", () -> micros(getWindow().getReceiptToApplied(), 50.0));
+        registry.gauge(group, "receiptToAppliedP99Micros", () -> micros(getWindow().getReceiptToApplied(), 99.0));
+        registry.gauge(group, "receiptToAppliedP999Micros", () -> micros(getWindow().getReceiptToApplied(), 99.9));
+        registry.gauge(group, "receiptToAppliedMaxMicros", () -> micros(getWindow().getReceiptToApplied(), 100.0));
+        registry.gauge(group, "parseP50Micros", () -> micros(getWindow().getParse(), 50.0));
+        registry.gauge(group, "parseP99Micros", () -> micros(getWindow().getParse(), 99.0));
+        registry.gauge(group, "parseMaxMicros", () -> micros(getWindow().getParse(), 100.0));
+        registry.gauge(group, "applyP50Micros", () -> micros(getWindow().getApply(), 50.0));
+        registry.gauge(group, "applyP99Micros", () -> micros(getWindow().getApply(), 99.0));
+        registry.gauge(group, "applyMaxMicros", () -> micros(getWindow().getApply(), 100.0));
+    }
+
+    private static double micros(LatencyHistogram.Snapshot snapshot, double percentile) {
+        return snapshot.getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    /** Rates and latency distributions over one closed window. */
+    public static final class Window {
+
+        private final long durationNanos;
+        private final long messages;
+        private final long levels;
+        private final LatencyHistogram.Snapshot receiptToApplied;
+        private final LatencyHistogram.Snapshot parse;
+        private final LatencyHistogram.Snapshot apply;
+
+        Window(long durationNanos,
+               long messages,
+               long levels,
+               LatencyHistogram.Snapshot receiptToApplied,
+               LatencyHistogram.Snapshot parse,
+               LatencyHistogram.Snapshot apply) {
+            this.durationNanos = durationNanos;
+            this.messages = messages;
+            this.levels = levels;
+            this.receiptToApplied = receiptToApplied;
+            this.parse = parse;
+            this.apply = apply;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public double getMessagesPerSecond() {
+            return perSecond(messages);
+        }
+
+        public double getLevelsPerSecond() {
+            return perSecond(levels);
+        }
+
+        public LatencyHistogram.Snapshot getReceiptToApplied() {
+            return receiptToApplied;
+        }
+
+        public LatencyHistogram.Snapshot getParse() {
+            return parse;
+        }
+
+        public LatencyHistogram.Snapshot getApply() {
+            return apply;
+        }
+
+        private double perSecond(long n) {
+            return durationNanos == 0 ? 0.0 : n * 1e9 / durationNanos;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends raw websocket frames to a binary log that FeedReplay plays back.
+ *
+ * Each file starts with a HEADER_BYTES header (magic, version, start time)
+ * followed by one record per frame: receive time in epoch nanoseconds, the
+ * UTF-8 length, then the frame bytes. Receive times come from System.nanoTime
+ * anchored to the wall clock when the recorder was created, so they never go
+ * backwards. Files rotate before exceeding maxFileBytes, which is capped so
+ * any file can be memory-mapped whole.
+ */
+public class FeedRecorder implements Closeable {
+
+    public static final String FILE_SUFFIX = ".obfeed";
+    public static final long DEFAULT_MAX_FILE_BYTES = 1L << 30;
+
+    static final long MAGIC = 0x4F42464545443031L;  // "OBFEED01"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_HEADER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    private final Path directory;
+    private final String name;
+    private final long maxFileBytes;
+    private final long baseEpochNanos;
+    private final long baseNanoTime;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private FileChannel channel;
+    private Path currentFile;
+    private long fileBytes;
+    private long framesWritten;
+
+    /** Files are named name-millis.obfeed in directory. */
+    public FeedRecorder(Path directory, String name, long maxFileBytes) throws IOException {
+        if (maxFileBytes <= HEADER_BYTES + RECORD_HEADER_BYTES || maxFileBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxFileBytes must be between "
+                    + (HEADER_BYTES + RECORD_HEADER_BYTES + 1) + " and " + Integer.MAX_VALUE);
+        }
+        this.directory = directory;
+        this.name = name;
+        this.maxFileBytes = maxFileBytes;
+        this.baseEpochNanos = System.currentTimeMillis() * 1_000_000L;
+        this.baseNanoTime = System.nanoTime();
+        Files.createDirectories(directory);
+    }
+
+    /** Records a complete frame as received now. */
+    public void record(String frame) throws IOException {
+        record(frame, System.nanoTime());
+    }
+
+    /** Records a complete frame received at receivedNanos, a System.nanoTime value. */
+    public synchronized void record(String frame, long receivedNanos) throws IOException {
+        long receivedEpochNanos = baseEpochNanos + (receivedNanos - baseNanoTime);
+        byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+        long recordBytes = RECORD_HEADER_BYTES + (long) bytes.length;
+        if (HEADER_BYTES + recordBytes > maxFileBytes) {
+            throw new IOException("Frame of " + bytes.length + " bytes does not fit in maxFileBytes");
+        }
+
+        if (channel == null || fileBytes + recordBytes > maxFileBytes) {
+            closeFile();
+            openFile();
+        }
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+        buffer.putLong(receivedEpochNanos);
+        buffer.putInt(bytes.length);
+        if (buffer.remaining() >= bytes.length) {
+            buffer.put(bytes);
+        } else {
+            flush();
+            writeFully(ByteBuffer.wrap(bytes));
+        }
+        fileBytes += recordBytes;
+        framesWritten++;
+    }
+
+    /** Pushes buffered frames to the OS. */
+    public synchronized void flush() throws IOException {
+        if (channel == null) return;
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    public synchronized Path getCurrentFile() {
+        return currentFile;
+    }
+
+    public synchronized long getFramesWritten() {
+        return framesWritten;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeFile();
+    }
+
+    private void openFile() throws IOException {
+        long now = System.currentTimeMillis();
+        Path file = directory.resolve(name + "-" + now + FILE_SUFFIX);
+        for (int i = 1; Files.exists(file); i++) {
+            file = directory.resolve(name + "-" + now + "-" + i + FILE_SUFFIX);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        buffer.clear();
+        buffer.putLong(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(RECORD_HEADER_BYTES);
+        buffer.putLong(now);
+        while (buffer.position() < HEADER_BYTES) {
+            buffer.put((byte) 0);
+        }
+        currentFile = file;
+        fileBytes = HEADER_BYTES;
+    }
+
+    private void closeFile() throws IOException {
+        if (channel == null) return;
+        try {
+            flush();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+}
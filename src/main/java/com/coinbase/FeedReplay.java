@@ -0,0 +1,162 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Plays FeedRecorder files back into a frame handler, with no network.
+ *
+ * Each file is memory-mapped and its frames are delivered in recorded order,
+ * paced by their receive times divided by speed: 1.0 is original speed, 10.0
+ * ten times faster, and AS_FAST_AS_POSSIBLE drops pacing altogether. A record
+ * cut short by a crash ends its file.
+ *
+ * Usage: FeedReplay <speed|max> <productId>[,<productId>...] <file.obfeed|dir>...
+ */
+public class FeedReplay {
+
+    public static final double AS_FAST_AS_POSSIBLE = 0.0;
+
+    private final List<Path> files;
+
+    /** A directory in files stands for its .obfeed files in recording order. */
+    public FeedReplay(List<Path> files) {
+        this.files = List.copyOf(files);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: FeedReplay <speed|max> <productId>[,<productId>...] <file.obfeed|dir>...");
+            System.exit(1);
+        }
+        double speed = "max".equalsIgnoreCase(args[0]) ? AS_FAST_AS_POSSIBLE : Double.parseDouble(args[0]);
+
+        BookManager bookManager = new BookManager();
+        for (String productId : args[1].split(",")) {
+            bookManager.addProduct(productId, null);
+        }
+        List<Path> files = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            files.add(Path.of(args[i]));
+        }
+
+        CoinbasePrimeWebsocketClient client = new CoinbasePrimeWebsocketClient(bookManager);
+        long start = System.nanoTime();
+        long frames = client.replay(files, speed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        FeedMetrics metrics = bookManager.getMetrics();
+        LatencyHistogram.Snapshot lag = metrics.getReceiptToApplied().snapshot();
+        System.out.printf("Replayed %d frames in %.3fs (%.0f/s); receipt-to-applied p50=%dus p99=%dus max=%dus%n",
+                frames, seconds, frames / seconds,
+                lag.getValueAtPercentile(50.0) / 1_000,
+                lag.getValueAtPercentile(99.0) / 1_000,
+                lag.getMax() / 1_000);
+
+        for (String productId : bookManager.getProductIds()) {
+            BookView view = bookManager.getBook(productId).getView();
+            BigDecimal mid = view.getMidPrice();
+            System.out.println("\n----- " + productId + " at sequence " + view.getSequenceNum() + " -----");
+            System.out.println("Mid Price: " + (mid != null ? mid : "N/A"));
+            System.out.println("Top Bids:");
+            for (OrderBookProcessor.Level lvl : view.getTopBids()) {
+                System.out.println("  " + lvl);
+            }
+            System.out.println("Top Asks:");
+            for (OrderBookProcessor.Level lvl : view.getTopAsks()) {
+                System.out.println("  " + lvl);
+            }
+        }
+    }
+
+    /**
+     * Delivers every recorded frame to sink on the calling thread, stopping
+     * early if the thread is interrupted. The receivedNanos passed along is
+     * the System.nanoTime of delivery. Exceptions from sink are reported and
+     * the replay continues.
+     * @return number of frames delivered
+     */
+    public long replay(double speed, FramePipeline.FrameHandler sink) throws IOException {
+        if (!(speed >= 0.0)) {
+            throw new IllegalArgumentException("speed must be >= 0");
+        }
+        boolean paced = speed > 0.0 && !Double.isInfinite(speed);
+        long firstRecorded = -1L;
+        long startNanos = 0L;
+        long frames = 0;
+
+        List<Path> recordings = new ArrayList<>();
+        for (Path path : files) {
+            recordings.addAll(expand(path));
+        }
+
+        for (Path file : recordings) {
+            try (FeedFileReader reader = new FeedFileReader(file)) {
+                while (reader.next()) {
+                    long recorded = reader.getRecordedNanos();
+                    if (firstRecorded < 0) {
+                        firstRecorded = recorded;
+                        startNanos = System.nanoTime();
+                    }
+                    if (paced) {
+                        long due = startNanos + (long) ((recorded - firstRecorded) / speed);
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        return frames;
+                    }
+
+                    try {
+                        sink.onFrame(reader.getFrame(), System.nanoTime());
+                    } catch (Exception e) {
+                        System.err.println("Failed to replay frame: " + e.getMessage());
+                    }
+                    frames++;
+                }
+            }
+        }
+        return frames;
+    }
+
+    private static String stem(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - FeedRecorder.FILE_SUFFIX.length());
+    }
+
+    static List<Path> expand(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> entries = Files.list(path)) {
+            return entries
+                    .filter(p -> p.getFileName().toString().endsWith(FeedRecorder.FILE_SUFFIX))
+                    .sorted(Comparator.comparing(FeedReplay::stem))
+                    .collect(Collectors.toList());
+        }
+    }
+}
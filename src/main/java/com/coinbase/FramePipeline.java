@@ -0,0 +1,237 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Bounded single-producer/single-consumer ring that moves complete websocket
+ * frames off the listener thread onto a dedicated applier thread.
+ *
+ * Slots are preallocated; the listener publishes frames with offer and the
+ * applier drains them in batches of up to maxBatch. With CREDIT backpressure
+ * the applier hands back one read credit per drained frame through the credit
+ * callback (typically WebSocket::request), so the socket is never read faster
+ * than the ring empties and any backlog stays visible in getDepth rather than
+ * hidden in the TCP buffer. With BLOCK the listener requests its next frame
+ * right away and offer parks it whenever the ring is full.
+ */
+public class FramePipeline {
+
+    public enum Backpressure { CREDIT, BLOCK }
+
+    public interface FrameHandler {
+        /** Called before each drained batch. */
+        default void onBatchStart() throws Exception {}
+
+        void onFrame(String frame) throws Exception;
+
+        /** receivedNanos is the System.nanoTime at which the frame was offered. */
+        default void onFrame(String frame, long receivedNanos) throws Exception {
+            onFrame(frame);
+        }
+
+        /** Called after each drained batch, before its credits are returned. */
+        default void onBatchEnd() throws Exception {}
+    }
+
+    private final String[] slots;
+    private final long[] receivedNanos;
+    private final int mask;
+    private final int maxBatch;
+    private final Backpressure backpressure;
+    private final FrameHandler handler;
+
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong head = new AtomicLong();   // next slot to drain, written by applier
+    private final AtomicLong tail = new AtomicLong();   // next slot to fill, written by listener
+    private volatile boolean applierParked;
+    private volatile boolean running;
+    private volatile IntConsumer creditSink = n -> {};
+    private volatile int highWaterMark;
+
+    private volatile Thread applier;
+
+    /** capacity is rounded up to a power of two. */
+    public FramePipeline(int capacity, int maxBatch, Backpressure backpressure, FrameHandler handler) {
+        if (capacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("capacity and maxBatch must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new String[size];
+        this.receivedNanos = new long[size];
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+        this.backpressure = backpressure;
+        this.handler = handler;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        applier = new Thread(this::drainLoop, "book-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /** Stops the applier and, unless called from it, waits for it to finish the batch in hand. */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = applier;
+            applier = null;
+        }
+        if (t == null) return;
+        LockSupport.unpark(t);
+        if (t != Thread.currentThread()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Where drained frames are credited back, e.g. the current WebSocket's request. */
+    public void setCreditSink(IntConsumer creditSink) {
+        this.creditSink = creditSink;
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /** Credits to grant a freshly opened connection: one per free slot under CREDIT, else 1. */
+    public int initialCredits() {
+        return backpressure == Backpressure.CREDIT ? Math.max(1, slots.length - getDepth()) : 1;
+    }
+
+    /**
+     * Publishes a complete frame. Listener thread only. Parks while the ring is
+     * full, which under CREDIT only happens if credits outran free slots.
+     */
+    public void offer(String frame) {
+        long now = System.nanoTime();
+        long t = tail.get();
+        while (t - head.get() >= slots.length) {
+            if (!running) {
+                throw new IllegalStateException("FramePipeline is not running");
+            }
+            LockSupport.parkNanos(1_000L);
+        }
+        slots[(int) t & mask] = frame;
+        receivedNanos[(int) t & mask] = now;
+        tail.set(t + 1);  // full fence so the applierParked read below cannot race ahead of it
+
+        int depth = (int) (t + 1 - head.get());
+        if (depth > highWaterMark) {
+            highWaterMark = depth;
+        }
+        if (applierParked) {
+            applierParked = false;
+            LockSupport.unpark(applier);
+        }
+    }
+
+    /**
+     * Runs task on the applier thread between two batches, so it never
+     * overlaps frame handling. Any thread may call this; tasks queued while
+     * the pipeline is stopped run once it is started.
+     */
+    public CompletableFuture<Void> runOnApplier(Runnable task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        tasks.add(() -> {
+            try {
+                task.run();
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        Thread t = applier;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+        return done;
+    }
+
+    /** Frames published but not yet applied. */
+    public int getDepth() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /** Deepest the ring has been since start. */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            for (Runnable task; (task = tasks.poll()) != null; ) {
+                task.run();
+            }
+            long h = head.get();
+            long available = tail.get() - h;
+            if (available == 0) {
+                applierParked = true;
+                if (tail.get() == h && tasks.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                applierParked = false;
+                continue;
+            }
+
+            int batch = (int) Math.min(available, maxBatch);
+            try {
+                handler.onBatchStart();
+            } catch (Exception e) {
+                System.err.println("Failed to start batch: " + e.getMessage());
+            }
+            for (int i = 0; i < batch; i++) {
+                int idx = (int) (h + i) & mask;
+                String frame = slots[idx];
+                slots[idx] = null;
+                try {
+                    handler.onFrame(frame, receivedNanos[idx]);
+                } catch (Exception e) {
+                    System.err.println("Failed to apply frame: " + e.getMessage());
+                }
+            }
+            try {
+                handler.onBatchEnd();
+            } catch (Exception e) {
+                System.err.println("Failed to finish batch: " + e.getMessage());
+            }
+            head.lazySet(h + batch);
+
+            if (backpressure == Backpressure.CREDIT) {
+                creditSink.accept(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Publishes gauges on the platform MBean server, one MBean per group with
+ * one read-only attribute per gauge, e.g.
+ * com.coinbase.orderbook:type=Book,name=ETH-USD / bidDepth. Groups named
+ * after a product (BASE-QUOTE) are of type Book; others, such as feed or
+ * orders, are typed by their capitalised name, e.g. type=Feed,name=feed.
+ *
+ * Gauges may be added before or after register; call register again to pick
+ * up new groups.
+ */
+public class JmxMetricsRegistry implements MetricsRegistry {
+
+    public static final String DEFAULT_DOMAIN = "com.coinbase.orderbook";
+
+    private final String domain;
+    private final Map<String, GaugeGroup> groups = new ConcurrentHashMap<>();
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    public JmxMetricsRegistry() {
+        this(DEFAULT_DOMAIN);
+    }
+
+    public JmxMetricsRegistry(String domain) {
+        this.domain = domain;
+    }
+
+    @Override
+    public void gauge(String group, String name, DoubleSupplier value) {
+        groups.computeIfAbsent(group, g -> new GaugeGroup()).gauges.put(name, value);
+    }
+
+    /** Registers every group that is not registered yet. */
+    public synchronized void register() throws JMException {
+        for (Map.Entry<String, GaugeGroup> e : groups.entrySet()) {
+            ObjectName name = objectName(e.getKey());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(e.getValue(), name);
+            }
+        }
+    }
+
+    public synchronized void unregister() throws JMException {
+        for (String group : groups.keySet()) {
+            ObjectName name = objectName(group);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    private ObjectName objectName(String group) throws JMException {
+        String type = group.indexOf('-') >= 0
+                ? "Book"
+                : Character.toUpperCase(group.charAt(0)) + group.substring(1);
+        return new ObjectName(domain + ":type=" + type + ",name=" + group);
+    }
+
+    private static final class GaugeGroup implements DynamicMBean {
+
+        private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            DoubleSupplier gauge = gauges.get(attribute);
+            if (gauge == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return gauge.getAsDouble();
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                DoubleSupplier gauge = gauges.get(attribute);
+                if (gauge != null) {
+                    list.add(new Attribute(attribute, gauge.getAsDouble()));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] attributes = gauges.keySet().stream()
+                    .sorted()
+                    .map(name -> new MBeanAttributeInfo(name, "double", name, true, false, false))
+                    .toArray(MBeanAttributeInfo[]::new);
+            return new MBeanInfo(getClass().getName(), "Order book gauges", attributes, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Single-pass l2_data decoder on top of the Jackson streaming parser.
+ *
+ * Reads channel, sequence_num and every event's updates without building a
+ * JsonNode tree. Product id, px and qty are copied into reusable buffers and
+ * handed out as CharSequences, so nothing is allocated per level.
+ * Like the feed itself, it expects "channel" and "sequence_num" ahead of
+ * "events" and an event's "type" and "product_id" ahead of its "updates".
+ *
+ * Events are pulled with begin/nextEvent and their levels pushed into a
+ * LevelHandler with readLevels, so a caller can route each event to a
+ * different book. Not thread-safe; use one instance per consuming thread.
+ */
+public final class L2StreamDecoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public interface LevelHandler {
+        void onLevel(boolean bid, CharSequence px, CharSequence qty);
+    }
+
+    public interface Handler extends LevelHandler {
+        /** Called before an event's updates; return false to skip them. */
+        boolean onEvent(boolean snapshot, CharSequence productId);
+    }
+
+    private final StringBuilder productId = new StringBuilder(16);
+    private final StringBuilder px = new StringBuilder(24);
+    private final StringBuilder qty = new StringBuilder(24);
+
+    private JsonParser parser;
+    private long sequenceNum;
+    private boolean snapshot;
+    private boolean pendingUpdates;
+    private long levelCount;
+
+    /**
+     * Decodes one complete websocket message, pushing every event to handler.
+     * @return true if the message was on the l2_data channel
+     */
+    public boolean decode(String message, Handler handler) throws IOException {
+        if (!begin(message)) return false;
+        try {
+            while (nextEvent()) {
+                if (handler.onEvent(snapshot, productId)) {
+                    readLevels(handler);
+                }
+            }
+        } finally {
+            close();
+        }
+        return true;
+    }
+
+    /**
+     * Starts decoding a message and positions before its first event.
+     * @return false, with nothing left open, if the message is not l2_data
+     */
+    public boolean begin(String message) throws IOException {
+        close();
+        sequenceNum = -1L;
+        pendingUpdates = false;
+        parser = FACTORY.createParser(message);
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                close();
+                return false;
+            }
+
+            boolean l2 = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("channel".equals(name)) {
+                    l2 = textEquals(parser, "l2_data");
+                } else if ("sequence_num".equals(name) && value == JsonToken.VALUE_NUMBER_INT) {
+                    sequenceNum = parser.getLongValue();
+                } else if ("events".equals(name) && value == JsonToken.START_ARRAY && l2) {
+                    return true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            close();
+            return l2;
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advances to the next event that carries updates. Any levels of the
+     * previous event that were not read are skipped.
+     * @return false, closing the parser, once the events array is exhausted
+     */
+    public boolean nextEvent() throws IOException {
+        if (parser == null) return false;
+        if (pendingUpdates) {
+            skipLevels();
+        }
+        finishEvent();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            snapshot = false;
+            productId.setLength(0);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("type".equals(name)) {
+                    snapshot = textEquals(parser, "snapshot");
+                } else if ("product_id".equals(name) && value == JsonToken.VALUE_STRING) {
+                    productId.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else if ("updates".equals(name) && value == JsonToken.START_ARRAY) {
+                    pendingUpdates = true;
+                    return true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        close();
+        return false;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /** product_id of the current event; only valid until the next call. */
+    public CharSequence productId() {
+        return productId;
+    }
+
+    /** sequence_num of the current message, or -1 if it had none. */
+    public long getSequenceNum() {
+        return sequenceNum;
+    }
+
+    /** Levels handed to a handler since this decoder was created. */
+    public long getLevelCount() {
+        return levelCount;
+    }
+
+    /** Pushes every level of the current event to handler. */
+    public void readLevels(LevelHandler handler) throws IOException {
+        if (!pendingUpdates) return;
+        pendingUpdates = false;
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            boolean bid = false;
+            px.setLength(0);
+            qty.setLength(0);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("side".equals(name)) {
+                    bid = textEquals(parser, "bid");
+                } else if ("px".equals(name) && value.isScalarValue()) {
+                    px.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else if ("qty".equals(name) && value.isScalarValue()) {
+                    qty.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (px.length() > 0 && qty.length() > 0) {
+                levelCount++;
+                handler.onLevel(bid, px, qty);
+            }
+        }
+    }
+
+    public void skipLevels() throws IOException {
+        if (!pendingUpdates) return;
+        pendingUpdates = false;
+        parser.skipChildren();
+    }
+
+    /** Releases the parser; safe to call more than once. */
+    public void close() throws IOException {
+        if (parser != null) {
+            JsonParser p = parser;
+            parser = null;
+            p.close();
+        }
+    }
+
+    /** Skips whatever follows "updates" in the current event object. */
+    private void finishEvent() throws IOException {
+        if (parser.currentToken() == JsonToken.END_ARRAY
+                && parser.getParsingContext().inObject()) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /** Case-insensitive compare of the current token text, without creating a String. */
+    private static boolean textEquals(JsonParser p, String expected) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) return false;
+        int len = p.getTextLength();
+        if (len != expected.length()) return false;
+        char[] buf = p.getTextCharacters();
+        int off = p.getTextOffset();
+        for (int i = 0; i < len; i++) {
+            if (Character.toLowerCase(buf[off + i]) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear histogram of non-negative longs, typically nanoseconds.
+ *
+ * Each power of two is split into 16 buckets, so any reported value is within
+ * about 6% of the recorded one, over the whole long range, in 960 counters.
+ * record never locks or allocates. It is meant for a single writer thread;
+ * any thread may take a snapshot, and the difference of two snapshots gives
+ * the distribution over the time between them.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Single writer; negative values are recorded as 0. */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        int i = bucketOf(value);
+        counts.lazySet(i, counts.get(i) + 1);
+        sum.lazySet(sum.get() + value);
+        if (value > max.get()) {
+            max.lazySet(value);
+        }
+        count.lazySet(count.get() + 1);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /** Everything recorded so far. */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        return new Snapshot(copy, n, sum.get(), max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exp - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /** Largest value that falls in bucket i. */
+    static long upperBoundOf(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = (i - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = SUB_BUCKETS + (i - SUB_BUCKETS) % SUB_BUCKETS;
+        long upper = ((sub + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /** Immutable copy of the counts at one point in time. */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0L, 0L, 0L);
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long maxRecorded;
+
+        private Snapshot(long[] counts, long count, long sum, long maxRecorded) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.maxRecorded = maxRecorded;
+        }
+
+        /** What was recorded after earlier was taken. */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = Math.max(0L, counts[i] - earlier.counts[i]);
+                n += delta[i];
+            }
+            return new Snapshot(delta, n, Math.max(0L, sum - earlier.sum), maxRecorded);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /** Highest value in this snapshot, to bucket precision; 0 if empty. */
+        public long getMax() {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return Math.min(upperBoundOf(i), maxRecorded);
+                }
+            }
+            return 0L;
+        }
+
+        /** e.g. getValueAtPercentile(99.9); 0 if empty. */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) return 0L;
+            long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count);
+            rank = Math.max(1L, rank);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), maxRecorded);
+                }
+            }
+            return getMax();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+/**
+ * Sees every price level change of a fixed-point OrderBookProcessor as it is
+ * applied, in ticks and lots. Called on the feed thread with the book lock
+ * held, so implementations must be quick and must not call back into the book.
+ */
+public interface LevelObserver {
+
+    /** The size at pxTicks on one side is now qtyLots; zero removes the level. */
+    void onLevel(boolean bid, long pxTicks, long qtyLots);
+
+    /**
+     * The book is being replaced wholesale, by a snapshot, a restore or a
+     * failover. Every level it then holds follows as onLevel; levels not
+     * repeated before onEventEnd are gone.
+     */
+    default void onResync() {
+    }
+
+    /** All levels of the event that produced sequenceNum have been reported. */
+    default void onEventEnd(long sequenceNum) {
+    }
+}
@@ -16,8 +16,14 @@ package com.coinbase;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.List;
+import java.nio.file.Path;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
 
 import com.coinbase.prime.orders.OrdersService;
 import com.coinbase.prime.model.orders.CreateOrderRequest;
@@ -30,12 +36,102 @@ import com.coinbase.prime.model.enums.OrderType;
 
 public class Main {
 
-    private static final String CSV_FILE_PATH = "order_book_capture.csv";
+    private static final String PRODUCT_ID = "ETH-USD";
+    private static final long ORDER_INTERVAL_MILLIS = 3000L;
+    private static final int ORDERS_IN_FLIGHT = 8;
+
+    // The book runs in fixed-point mode, which the bucketed ladders, queue estimates and
+    // checkpoints below need. This is ETH-USD's $0.01 tick; a price finer than that fails its event.
+    private static final ProductScale BOOK_SCALE = ProductScale.of(2, 8);
+
+    // Binary capture; convert to the CSV layout with CaptureCsvConverter.
+    private static final Path CAPTURE_DIR = Path.of("order_book_capture");
+    private static final long CAPTURE_MAX_FILE_BYTES = 64L * 1024 * 1024;
+    private static final long CAPTURE_ROTATE_MILLIS = 60L * 60 * 1000;
+    private static final ProductScale CAPTURE_SCALE = ProductScale.of(2, 8);
+    private static final int CAPTURE_QUEUE_CAPACITY = 4096;
+    private static final long CAPTURE_SYNC_MILLIS = 1000L;
+
+    // Set to record the raw feed for FeedReplay.
+    private static final String FEED_RECORD_DIR = System.getenv("FEED_RECORD_DIR");
+
+    // WARM_STANDBY keeps a second connection's books ready for failover; ARBITRATED applies
+    // whichever of two connections delivers each message first.
+    private static final String FEED_REDUNDANCY = System.getenv("FEED_REDUNDANCY");
+
+    // Set to a file path to publish the book for SharedBookReaders in other processes on this host.
+    private static final String BOOK_SHM_FILE = System.getenv("BOOK_SHM_FILE");
+
+    // Set to checkpoint the book there periodically and warm-start from it.
+    private static final String BOOK_CHECKPOINT_DIR = System.getenv("BOOK_CHECKPOINT_DIR");
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 10_000L;
+
+    // Price granularities of the aggregated depth ladders kept alongside the book.
+    private static final BigDecimal[] BUCKET_WIDTHS = {
+            new BigDecimal("0.10"), BigDecimal.ONE, BigDecimal.TEN
+    };
+    private static final int BUCKETS_SHOWN = 5;
+
+    // Set to also follow ETH-BTC and BTC-USD and print ETH-USD as implied through them.
+    private static final String IMPLIED_BOOK = System.getenv("IMPLIED_BOOK");
+    private static final int IMPLIED_DEPTH = 10;
 
     public static void main(String[] args) throws InterruptedException, IOException {
 
         String credsStringBlob = System.getenv("COINBASE_PRIME_CREDENTIALS");
-        CoinbasePrimeWebsocketClient wsClient = new CoinbasePrimeWebsocketClient();
+        CoinbasePrimeWebsocketClient wsClient = new CoinbasePrimeWebsocketClient(
+                FEED_REDUNDANCY == null
+                        ? CoinbasePrimeWebsocketClient.Redundancy.NONE
+                        : CoinbasePrimeWebsocketClient.Redundancy.valueOf(FEED_REDUNDANCY),
+                BOOK_SCALE);
+
+        SyntheticBook implied = null;
+        if (IMPLIED_BOOK != null) {
+            BookManager books = wsClient.getBookManager();
+            implied = new SyntheticBook(
+                    SyntheticBook.Leg.of(books.addProduct("ETH-BTC", ProductScale.of(5, 8))),
+                    SyntheticBook.Leg.of(books.addProduct("BTC-USD", BOOK_SCALE)),
+                    BOOK_SCALE, IMPLIED_DEPTH, Runnable::run);
+        }
+
+        // Feed lag, throughput and book depth, under com.coinbase.orderbook in JConsole or any JMX agent.
+        // Bound once every product is added, so register() publishes each product's gauges.
+        JmxMetricsRegistry metrics = new JmxMetricsRegistry();
+        wsClient.bindMetrics(metrics);
+
+        // Orders are sent on their own threads so a REST round trip never delays the next book-driven decision.
+        OrderSubmitter submitter = new OrderSubmitter(Executors.newFixedThreadPool(ORDERS_IN_FLIGHT, r -> {
+            Thread t = new Thread(r, "order-submit");
+            t.setDaemon(true);
+            return t;
+        }), ORDERS_IN_FLIGHT);
+        submitter.bindTo(metrics, "orders");
+        try {
+            metrics.register();
+        } catch (JMException e) {
+            System.err.println("Failed to register metrics MBeans: " + e.getMessage());
+        }
+
+        if (FEED_RECORD_DIR != null) {
+            // One recording per connection: it holds the frames of every product subscribed on it.
+            FeedRecorder recorder = new FeedRecorder(
+                    Path.of(FEED_RECORD_DIR), "l2_data", FeedRecorder.DEFAULT_MAX_FILE_BYTES);
+            wsClient.setRecorder(recorder);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                // The applier may be mid-record; stop it before closing the file under it.
+                wsClient.stop();
+                wsClient.setRecorder(null);
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        }
+
+        if (BOOK_CHECKPOINT_DIR != null) {
+            startCheckpoints(wsClient.getBookManager(), Path.of(BOOK_CHECKPOINT_DIR));
+        }
 
         new Thread(wsClient::start).start();
 
@@ -43,72 +139,151 @@ public class Main {
         CoinbasePrimeClient client = new CoinbasePrimeClient(credentials);
         OrdersService ordersService = PrimeServiceFactory.createOrdersService(client);
 
-        OrderBookCsvExporter.ensureCsvHasHeaderIfNeeded(CSV_FILE_PATH);
+        // Capture rows are only enqueued here; disk I/O happens on the capture-writer thread.
+        // Rows that overflow the queue go to a memory-mapped spill file instead of the heap.
+        AsyncCaptureWriter capture = new AsyncCaptureWriter(
+                new BookCaptureWriter(
+                        CAPTURE_DIR, PRODUCT_ID, CAPTURE_SCALE, CAPTURE_MAX_FILE_BYTES, CAPTURE_ROTATE_MILLIS, false),
+                CAPTURE_QUEUE_CAPACITY,
+                AsyncCaptureWriter.Overflow.SPILL,
+                CAPTURE_SYNC_MILLIS,
+                true,
+                new BookCaptureWriter(CAPTURE_DIR.resolve("spill"), PRODUCT_ID, CAPTURE_SCALE,
+                        CAPTURE_MAX_FILE_BYTES, CAPTURE_ROTATE_MILLIS, true)
+        );
+        capture.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                capture.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
 
-        while (true) {
-            OrderBookProcessor processor = wsClient.getProcessor();
+        // Reacts to top-of-book changes as they are applied instead of polling; a
+        // slow order round-trip only ever sees the latest book once it returns.
+        OrderBookProcessor book = wsClient.getBookManager().getBook(PRODUCT_ID);
 
-            if (processor == null) {
-                System.out.println("\nNo snapshot has been received yet... waiting.");
-            } else {
-                BigDecimal mid = processor.getMidPrice();
-                System.out.println("\n----- Current Book -----");
-                System.out.println("Mid Price: " + (mid != null ? mid : "N/A"));
+        if (BOOK_SHM_FILE != null) {
+            SharedBookWriter shared = new SharedBookWriter(
+                    Path.of(BOOK_SHM_FILE), PRODUCT_ID, CAPTURE_SCALE, OrderBookProcessor.DEFAULT_VIEW_DEPTH);
+            book.subscribe(BookTrigger.everyUpdate(), Executors.newSingleThreadExecutor(), shared);
+        }
 
-                List<OrderBookProcessor.Level> topBids = processor.getTopBids(10);
-                List<OrderBookProcessor.Level> topAsks = processor.getTopAsks(10);
-                System.out.println("Top Bids:");
-                for (OrderBookProcessor.Level lvl : topBids) {
-                    System.out.println("  " + lvl);
-                }
-                System.out.println("Top Asks:");
-                for (OrderBookProcessor.Level lvl : topAsks) {
-                    System.out.println("  " + lvl);
-                }
+        BucketedBook ladders = new BucketedBook(book, BUCKET_WIDTHS);
 
-                CreateOrderResponse orderResponse = ordersService.createOrder(
-                        new CreateOrderRequest.Builder()
-                                .portfolioId("314dbd76-4459-41cd-ba9a-dccdd86b44e2")
-                                .productId("ETH-USD")
-                                .side(OrderSide.BUY)
-                                .type(OrderType.LIMIT)
-                                .baseQuantity("0.001")
-                                .limitPrice("1000.0")
-                                .clientOrderId(UUID.randomUUID().toString())
-                                .build()
-                );
-                String orderId = orderResponse.getOrderId();
-                System.out.println("Order ID: " + orderId);
+        if (implied != null) {
+            implied.getBook().subscribe(BookTrigger.topOfBook(), Executors.newSingleThreadExecutor(),
+                    view -> printBook("Implied " + PRODUCT_ID + " via ETH-BTC x BTC-USD", view));
+        }
+
+        // Every book change is captured, not just the ones orders were placed on; under load
+        // the subscription conflates to the latest view rather than queueing each one.
+        book.subscribe(BookTrigger.everyUpdate(), Executors.newSingleThreadExecutor(), view -> {
+            try {
+                capture.submit(view);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
 
-                BigDecimal midSnapshot = processor.getMidPrice();
-                List<OrderBookProcessor.Level> safeTopBids = processor.getTopBids(10);
-                List<OrderBookProcessor.Level> safeTopAsks = processor.getTopAsks(10);
+        ExecutorService strategy = Executors.newSingleThreadExecutor();
+        AtomicLong lastOrderMillis = new AtomicLong();
 
-                BigDecimal totalAsksQty = processor.getTotalAsksQty();
-                BigDecimal totalBidsQty = processor.getTotalBidsQty();
+        // Follows the queue ahead of each of our resting orders from the level changes themselves.
+        QueuePositionEstimator queue = new QueuePositionEstimator(book);
+        queue.addListener(strategy, estimate -> {
+            if (estimate.isAtFront()) {
+                System.out.println("Front of queue: " + estimate);
+            }
+        });
 
-                System.out.println("\nCaptured Book for Order " + orderId);
-                System.out.println("Mid Price: " + midSnapshot);
-                System.out.println("Top Bids:");
-                for (OrderBookProcessor.Level lvl : safeTopBids) {
-                    System.out.println("  " + lvl);
+        book.subscribe(BookTrigger.topOfBook(), strategy, view -> {
+            if (view.isProvisional()) {
+                printBook("Provisional Book (from checkpoint)", view);
+                return;
+            }
+            printBook("Current Book", view);
+            printBuckets(ladders, BigDecimal.TEN);
+
+            long now = System.currentTimeMillis();
+            if (now - lastOrderMillis.get() < ORDER_INTERVAL_MILLIS) {
+                return;
+            }
+            lastOrderMillis.set(now);
+
+            String clientOrderId = UUID.randomUUID().toString();
+            CreateOrderRequest request = new CreateOrderRequest.Builder()
+                    .portfolioId("314dbd76-4459-41cd-ba9a-dccdd86b44e2")
+                    .productId(PRODUCT_ID)
+                    .side(OrderSide.BUY)
+                    .type(OrderType.LIMIT)
+                    .baseQuantity("0.001")
+                    .limitPrice("1000.0")
+                    .clientOrderId(clientOrderId)
+                    .build();
+
+            // Tracked before sending, so the size already at the price counts as ahead of us.
+            System.out.println("Queue estimate: "
+                    + queue.track(clientOrderId, true, new BigDecimal("1000.0"), new BigDecimal("0.001")));
+
+            // The capture keeps the view this decision was made on, not the book at response time.
+            submitter.submit(view, () -> ordersService.createOrder(request)).whenComplete((submission, error) -> {
+                if (error != null) {
+                    queue.untrack(clientOrderId);
+                    System.err.println("Failed to place order: " + error.getMessage());
+                    return;
                 }
-                System.out.println("Top Asks:");
-                for (OrderBookProcessor.Level lvl : safeTopAsks) {
-                    System.out.println("  " + lvl);
+                CreateOrderResponse orderResponse = submission.getResponse();
+                String orderId = orderResponse.getOrderId();
+                System.out.println("Order ID: " + orderId + " (" + submission.getLatencyNanos() / 1_000_000
+                        + " ms, " + submission.getViewsBehind(book) + " book updates since decision)");
+                printBook("Captured Book for Order " + orderId, submission.getDecidedOn());
+                try {
+                    capture.submit(submission.getDecidedOn(), orderId);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
+            });
+        });
+    }
 
-                OrderBookCsvExporter.captureOrderBookToCsv(
-                    CSV_FILE_PATH,
-                    orderId,
-                    safeTopAsks,
-                    safeTopBids,
-                    totalAsksQty,  
-                    totalBidsQty    
-                );
+    /** Restores the books from dir now, then checkpoints them periodically and on shutdown. */
+    private static void startCheckpoints(BookManager books, Path dir) {
+        books.restoreFrom(dir);
+        Runnable checkpoint = () -> {
+            try {
+                books.checkpointTo(dir);
+            } catch (IOException e) {
+                System.err.println("Failed to write book checkpoint: " + e.getMessage());
             }
+        };
+        ScheduledExecutorService checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "book-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpoints.scheduleWithFixedDelay(
+                checkpoint, CHECKPOINT_INTERVAL_MILLIS, CHECKPOINT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(checkpoint));
+    }
+
+    private static void printBuckets(BucketedBook ladders, BigDecimal width) {
+        System.out.println("Bids by $" + width.toPlainString() + ": " + ladders.getBidBuckets(width, BUCKETS_SHOWN));
+        System.out.println("Asks by $" + width.toPlainString() + ": " + ladders.getAskBuckets(width, BUCKETS_SHOWN));
+    }
 
-            Thread.sleep(3000);
+    private static void printBook(String title, BookView view) {
+        BigDecimal mid = view.getMidPrice();
+        System.out.println("\n----- " + title + " -----");
+        System.out.println("Mid Price: " + (mid != null ? mid : "N/A"));
+        System.out.println("Top Bids:");
+        for (OrderBookProcessor.Level lvl : view.getTopBids()) {
+            System.out.println("  " + lvl);
+        }
+        System.out.println("Top Asks:");
+        for (OrderBookProcessor.Level lvl : view.getTopAsks()) {
+            System.out.println("  " + lvl);
         }
     }
 }
@@ -0,0 +1,28 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Where the feed's gauges are published: JmxMetricsRegistry, or an adapter
+ * onto whatever registry the application already runs. Gauges are polled by
+ * the registry and only read state the feed thread has already published.
+ */
+public interface MetricsRegistry {
+
+    /** group is "feed" for values of the whole connection, else a product id. */
+    void gauge(String group, String name, DoubleSupplier value);
+}
@@ -124,7 +124,25 @@ public class OrderBookCsvExporter {
             BigDecimal fullAsksTotal, 
             BigDecimal fullBidsTotal 
     ) {
-     
+        String line = formatRow(orderId, asksTop10, bidsTop10, fullAsksTotal, fullBidsTotal);
+
+        // Append to CSV
+        try (FileWriter fw = new FileWriter(filePath, true)) {
+            fw.write(line);
+            fw.write("\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** One CSV line, without the trailing newline, in CSV_HEADER column order. */
+    static String formatRow(
+            String orderId,
+            List<OrderBookProcessor.Level> asksTop10,
+            List<OrderBookProcessor.Level> bidsTop10,
+            BigDecimal fullAsksTotal,
+            BigDecimal fullBidsTotal
+    ) {
 
         BigDecimal askTotal10 = BigDecimal.ZERO;
         for (OrderBookProcessor.Level ask : asksTop10) {
@@ -215,13 +233,6 @@ public class OrderBookCsvExporter {
                 sb.append(",");
             }
         }
-
-        // Append to CSV
-        try (FileWriter fw = new FileWriter(filePath, true)) {
-            fw.write(sb.toString());
-            fw.write("\n");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        return sb.toString();
     }
 }
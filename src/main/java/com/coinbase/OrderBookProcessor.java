@@ -14,153 +14,777 @@
 
 package com.coinbase;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
-
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.concurrent.Executor;
+
+/**
+ * Order book for one product, written by a single feed thread.
+ *
+ * After each applied event the writer publishes an immutable BookView of the
+ * top levels, mid, totals and sequence. getView and the getters served from it
+ * never block; only reads deeper than the view depth take the book lock.
+ *
+ * Derived depth and cost figures are kept up to date as levels change: in
+ * fixed-point mode top-N size, size within a price band and cost to fill a
+ * size are O(1) or O(log n) against running prefix sums, with no rescan.
+ */
 public class OrderBookProcessor {
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    public static final int DEFAULT_VIEW_DEPTH = 10;
+
+    private final ProductScale scale;
+    private BookSide bids;
+    private BookSide asks;
+    private final int viewDepth;
+    private int[] depthBandsBps = new int[0];
+    private volatile ProductScale topOfBookScale;
+
+    private final L2StreamDecoder decoder = new L2StreamDecoder();
+    private final L2StreamDecoder.LevelHandler levelHandler = this::applySingleLevel;
+    private char[] digits = new char[32];  // BigDecimal mode: a level's text, parsed without a String
+
+    private volatile boolean snapshotReceived;
+    private volatile boolean provisional;
+    private volatile BookView view = BookView.EMPTY;
+    private volatile BookSubscription[] subscriptions = new BookSubscription[0];
+    private volatile LevelObserver[] levelObservers = new LevelObserver[0];
+    private long lastSequenceNum = -1L;
+
+    private boolean batching;
+    private boolean staging;
+    private boolean batchDirty;
+    private boolean resetStaged;
+
+    /**
+     * Creates an empty book that fills in from the first snapshot passed to
+     * applyMessage. With a non-null scale the book runs in fixed-point mode:
+     * prices and sizes are parsed straight into scaled longs and the BigDecimal
+     * getters become conversion views over them, so a level allocates nothing.
+     * Without one each level is parsed into the two BigDecimals the book keeps,
+     * with no intermediate String.
+     */
+    public OrderBookProcessor(ProductScale scale) {
+        this(scale, DEFAULT_VIEW_DEPTH);
+    }
 
-    private final List<Level> bids = new ArrayList<>();
-    private final List<Level> asks = new ArrayList<>();
+    /** viewDepth is how many levels per side each published BookView carries. */
+    public OrderBookProcessor(ProductScale scale, int viewDepth) {
+        if (viewDepth < 1) {
+            throw new IllegalArgumentException("viewDepth must be positive");
+        }
+        this.scale = scale;
+        this.viewDepth = viewDepth;
+        if (scale != null) {
+            this.bids = new ScaledBookSide(true, scale);
+            this.asks = new ScaledBookSide(false, scale);
+        } else {
+            this.bids = new DecimalBookSide(true);
+            this.asks = new DecimalBookSide(false);
+        }
+    }
 
     public OrderBookProcessor(String snapshotJson) {
+        this(snapshotJson, null);
+    }
+
+    public OrderBookProcessor(String snapshotJson, ProductScale scale) {
+        this(scale);
         processSnapshot(snapshotJson);
     }
 
     public synchronized void processSnapshot(String snapshotJson) {
         try {
-            JsonNode root = MAPPER.readTree(snapshotJson);
-            JsonNode events = root.path("events");
-
-            if (!events.isArray() || events.isEmpty()) return;
+            resetBook();
+            applyMessage(snapshotJson);
+            publish();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            JsonNode firstEvent = events.get(0);
-            JsonNode updates = firstEvent.path("updates");
-            if (!updates.isArray()) return;
+    public synchronized void applyUpdate(String updateJson) {
+        try {
+            applyMessage(updateJson);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            bids.clear();
-            asks.clear(); // Reset on snapshot
+    /**
+     * Single-pass apply of any raw l2_data message: snapshot events reset the
+     * book, update events are applied on top. Updates that arrive before the
+     * first snapshot are ignored.
+     * @return true if the message carried a snapshot
+     */
+    public synchronized boolean applyMessage(String json) throws IOException {
+        if (!decoder.begin(json)) return false;
+        boolean sawSnapshot = false;
+        try {
+            while (decoder.nextEvent()) {
+                sawSnapshot |= applyEvent(decoder);
+            }
+        } finally {
+            decoder.close();
+        }
+        return sawSnapshot;
+    }
 
-            for (JsonNode levelNode : updates) {
-                Level lvl = parseLevel(levelNode);
-                if ("bid".equalsIgnoreCase(lvl.side)) {
-                    bids.add(lvl);
-                } else if ("offer".equalsIgnoreCase(lvl.side)) {
-                    asks.add(lvl);
-                }
+    /**
+     * Applies several raw messages as one batch. Within the batch only the last
+     * write per price level reaches the book, each once, and a single view is
+     * published at the end.
+     * @return true if any message carried a snapshot
+     */
+    public synchronized boolean applyMessages(List<String> jsons) throws IOException {
+        beginBatch();
+        boolean sawSnapshot = false;
+        try {
+            for (String json : jsons) {
+                sawSnapshot |= applyMessage(json);
             }
+        } finally {
+            endBatch();
+        }
+        return sawSnapshot;
+    }
 
-            sortAll();
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+    /** Until endBatch, events are staged per price level instead of applied and published. */
+    synchronized void beginBatch() {
+        batching = true;
+    }
+
+    synchronized void endBatch() {
+        if (!batching) return;
+        batching = false;
+        if (batchDirty) {
+            batchDirty = false;
+            flushStaged();
+            publish();
         }
     }
 
-    public synchronized void applyUpdate(String updateJson) {
+    /**
+     * Applies the event the decoder is positioned on, whatever its product_id.
+     * @return true if the event was a snapshot
+     */
+    synchronized boolean applyEvent(L2StreamDecoder source) throws IOException {
+        boolean snapshot = source.isSnapshot();
+        if (snapshot) {
+            stageReset();
+        } else if (!snapshotReceived) {
+            source.skipLevels();
+            return false;
+        }
+
+        LevelObserver[] observers = levelObservers;
+        if (snapshot) {
+            for (LevelObserver observer : observers) {
+                observer.onResync();
+            }
+        }
+
+        // Snapshots are always staged so an empty side is built with one sort.
+        staging = snapshot || batching;
         try {
-            JsonNode root = MAPPER.readTree(updateJson);
-            String channel = root.path("channel").asText();
-            if (!"l2_data".equals(channel)) return;
+            source.readLevels(levelHandler);
+        } catch (IOException | RuntimeException e) {
+            abandonEvent();
+            throw e;
+        }
+        lastSequenceNum = source.getSequenceNum();
+        for (LevelObserver observer : observers) {
+            observer.onEventEnd(lastSequenceNum);
+        }
 
-            JsonNode events = root.path("events");
-            if (!events.isArray()) return;
+        if (batching) {
+            batchDirty = true;
+        } else {
+            flushStaged();
+            publish();
+        }
+        return snapshot;
+    }
 
-            for (JsonNode event : events) {
-                JsonNode updates = event.path("updates");
-                if (!updates.isArray()) continue;
+    public boolean hasSnapshot() {
+        return snapshotReceived;
+    }
 
-                for (JsonNode upd : updates) {
-                    Level lvl = parseLevel(upd);
-                    applySingleLevel(lvl);
+    /**
+     * Exchanges levels, snapshot and provisional state and sequence with other, which must
+     * use the same scale, and publishes both books. Neither book's feed
+     * thread may be applying events meanwhile.
+     */
+    void swapState(OrderBookProcessor other) {
+        synchronized (this) {
+            synchronized (other) {
+                if (!sameScale(scale, other.scale)) {
+                    throw new IllegalArgumentException("Cannot swap books of different scales");
                 }
+                BookSide otherBids = other.bids;
+                BookSide otherAsks = other.asks;
+                other.bids = bids;
+                other.asks = asks;
+                bids = otherBids;
+                asks = otherAsks;
+
+                boolean otherSnapshot = other.snapshotReceived;
+                other.snapshotReceived = snapshotReceived;
+                snapshotReceived = otherSnapshot;
+
+                boolean otherProvisional = other.provisional;
+                other.provisional = provisional;
+                provisional = otherProvisional;
+
+                long otherSequenceNum = other.lastSequenceNum;
+                other.lastSequenceNum = lastSequenceNum;
+                lastSequenceNum = otherSequenceNum;
+
+                resyncObservers();
+                other.resyncObservers();
+                publish();
+                other.publish();
             }
-            filterClosed();
-            sortAll();
+        }
+    }
 
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+    private static boolean sameScale(ProductScale a, ProductScale b) {
+        if (a == null || b == null) return a == b;
+        return a.getPriceDecimals() == b.getPriceDecimals() && a.getSizeDecimals() == b.getSizeDecimals();
+    }
+
+    /**
+     * The whole book as one l2_data snapshot message for productId, or null
+     * before the first snapshot; replaying it rebuilds this book.
+     */
+    synchronized String toSnapshotMessage(String productId) {
+        if (!snapshotReceived) return null;
+        StringBuilder json = new StringBuilder(64 + 64 * (bids.depth() + asks.depth()));
+        json.append("{\"channel\":\"l2_data\",\"sequence_num\":").append(lastSequenceNum)
+                .append(",\"events\":[{\"type\":\"snapshot\",\"product_id\":\"").append(productId)
+                .append("\",\"updates\":[");
+        boolean first = appendLevels(json, bids.top(bids.depth()), "bid", true);
+        appendLevels(json, asks.top(asks.depth()), "offer", first);
+        return json.append("]}]}").toString();
+    }
+
+    private static boolean appendLevels(StringBuilder json, List<Level> levels, String side, boolean first) {
+        for (Level level : levels) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"side\":\"").append(side)
+                    .append("\",\"px\":\"").append(level.px.toPlainString())
+                    .append("\",\"qty\":\"").append(level.qty.toPlainString()).append("\"}");
         }
+        return first;
     }
 
-    private void applySingleLevel(Level lvl) {
-        List<Level> list = "bid".equalsIgnoreCase(lvl.side) ? bids : asks;
+    /** True while the book holds restored levels that no snapshot has replaced yet. */
+    public boolean isProvisional() {
+        return provisional;
+    }
 
-        list.removeIf(existing -> existing.px.compareTo(lvl.px) == 0);
+    /**
+     * Replaces the book with levels from a checkpoint and publishes them. A
+     * provisional book ignores updates until the next snapshot, which
+     * replaces these levels wholesale; otherwise the levels count as a
+     * snapshot and updates apply on top.
+     */
+    synchronized void restore(List<Level> bidLevels, List<Level> askLevels, long sequenceNum, boolean provisional) {
+        bids.clear();
+        asks.clear();
+        for (Level level : bidLevels) {
+            bids.stage(level);
+        }
+        for (Level level : askLevels) {
+            asks.stage(level);
+        }
+        resetStaged = false;
+        flushStaged();
+        lastSequenceNum = sequenceNum;
+        snapshotReceived = !provisional;
+        this.provisional = provisional;
+        resyncObservers();
+        publish();
+    }
+
+    /**
+     * Every level of both sides as last published, with that view's
+     * sequence, read under one lock; null before a snapshot has been
+     * published. Events staged in an open batch are not in it yet.
+     */
+    BookCheckpoint checkpoint(String productId) {
+        return checkpoint(productId, System.currentTimeMillis());
+    }
 
-        if (lvl.qty.compareTo(BigDecimal.ZERO) > 0) {
-            list.add(lvl);
+    /** As checkpoint, stamped with savedEpochMillis, e.g. a recorded time. */
+    synchronized BookCheckpoint checkpoint(String productId, long savedEpochMillis) {
+        // The sides only change when a view is published, so they match view, not lastSequenceNum.
+        BookView published = view;
+        if (!snapshotReceived || scale == null || published.getVersion() == 0 || published.isProvisional()) {
+            return null;
         }
+        return new BookCheckpoint(productId, scale, published.getSequenceNum(), savedEpochMillis,
+                bids.top(bids.depth()), asks.top(asks.depth()));
+    }
+
+    /**
+     * Starts replacing the book with a snapshot. The live sides, and the
+     * provisional flag, stay as they are until flushStaged, so readers
+     * between the events of a batch never see a half-built book.
+     */
+    private void stageReset() {
+        bids.stageClear();
+        asks.stageClear();
+        snapshotReceived = true;
+        resetStaged = true;
+    }
+
+    /**
+     * After an event failed part-way: drops everything staged, so neither a
+     * half-read snapshot nor the rest of the batch is ever published, and
+     * ignores updates until the next snapshot. Levels an unbatched update
+     * applied before failing stay until that snapshot replaces them.
+     */
+    private void abandonEvent() {
+        bids.discardStaged();
+        asks.discardStaged();
+        staging = false;
+        resetStaged = false;
+        batchDirty = false;
+        snapshotReceived = false;
+        lastSequenceNum = view.getSequenceNum();
     }
 
-    private void filterClosed() {
-        bids.removeIf(lvl -> lvl.qty.compareTo(BigDecimal.ZERO) <= 0);
-        asks.removeIf(lvl -> lvl.qty.compareTo(BigDecimal.ZERO) <= 0);
+    private void resetBook() {
+        bids.clear();
+        asks.clear();
+        snapshotReceived = true;
+        provisional = false;
     }
 
-    private void sortAll() {
-        bids.sort(Comparator.comparing((Level l) -> l.px).reversed());
-        asks.sort(Comparator.comparing((Level l) -> l.px));
+    private void applySingleLevel(boolean bid, CharSequence px, CharSequence qty) {
+        if (scale != null) {
+            long pxTicks = scale.parsePrice(px);
+            long qtyLots = scale.parseSize(qty);
+            for (LevelObserver observer : levelObservers) {
+                observer.onLevel(bid, pxTicks, qtyLots);
+            }
+            if (staging) {
+                fixed(bid).stage(pxTicks, qtyLots);
+            } else {
+                fixed(bid).apply(pxTicks, qtyLots);
+            }
+        } else {
+            Level lvl = new Level(
+                    toDecimal(px),
+                    toDecimal(qty),
+                    bid ? "bid" : "offer"
+            );
+            if (staging) {
+                (bid ? bids : asks).stage(lvl);
+            } else {
+                (bid ? bids : asks).apply(lvl);
+            }
+        }
     }
 
-    private Level parseLevel(JsonNode node) {
-        return new Level(
-                new BigDecimal(node.path("px").asText()),
-                new BigDecimal(node.path("qty").asText()),
-                node.path("side").asText()
+    private BigDecimal toDecimal(CharSequence text) {
+        int n = text.length();
+        if (n > digits.length) {
+            digits = new char[Math.max(n, digits.length * 2)];
+        }
+        for (int i = 0; i < n; i++) {
+            digits[i] = text.charAt(i);
+        }
+        return new BigDecimal(digits, 0, n);
+    }
+
+    /** Reports the whole book to the level observers, after it changed other than through events. */
+    private void resyncObservers() {
+        for (LevelObserver observer : levelObservers) {
+            resync(observer);
+        }
+    }
+
+    private void resync(LevelObserver observer) {
+        observer.onResync();
+        for (int side = 0; side < 2; side++) {
+            ScaledBookSide levels = fixed(side == 0);
+            for (int rank = 0; rank < levels.depth(); rank++) {
+                observer.onLevel(side == 0, levels.ticksAt(rank), levels.lotsAt(rank));
+            }
+        }
+        observer.onEventEnd(lastSequenceNum);
+    }
+
+    private void flushStaged() {
+        bids.flush();
+        asks.flush();
+        staging = false;
+        if (resetStaged) {
+            resetStaged = false;
+            provisional = false;
+        }
+    }
+
+    private void publish() {
+        BookView current = view;
+        BigDecimal mid = midPrice();
+        int[] bands = depthBandsBps;
+        BigDecimal[] bidBands = new BigDecimal[bands.length];
+        BigDecimal[] askBands = new BigDecimal[bands.length];
+        if (mid != null) {
+            for (int i = 0; i < bands.length; i++) {
+                bidBands[i] = bids.bandQty(i, bandThreshold(true, mid, bands[i]));
+                askBands[i] = asks.bandQty(i, bandThreshold(false, mid, bands[i]));
+            }
+        }
+        List<Level> topBids = bids.top(viewDepth);
+        List<Level> topAsks = asks.top(viewDepth);
+        BookView next = new BookView(
+                lastSequenceNum,
+                current.getVersion() + 1,
+                topBids,
+                topAsks,
+                mid,
+                bids.totalQty(),
+                asks.totalQty(),
+                bids.depth(),
+                asks.depth(),
+                bids.topQty(viewDepth),
+                asks.topQty(viewDepth),
+                bands,
+                bidBands,
+                askBands,
+                provisional,
+                fixedTop(topBids, topAsks),
+                System.nanoTime()
         );
+        view = next;
+        for (BookSubscription subscription : subscriptions) {
+            subscription.onPublish(current, next);
+        }
     }
 
-    // -------------------- PUBLIC READ METHODS -------------------- //
+    /** The view's top levels as longs for copyTop; null for a BigDecimal book without a fitting top-of-book scale. */
+    private BookView.FixedTop fixedTop(List<Level> topBids, List<Level> topAsks) {
+        if (scale != null) {
+            return new BookView.FixedTop(
+                    topTicks(fixed(true)), topLots(fixed(true)),
+                    topTicks(fixed(false)), topLots(fixed(false)),
+                    fixed(true).totalLots(), fixed(false).totalLots());
+        }
+        ProductScale s = topOfBookScale;
+        if (s == null) return null;
+        try {
+            return new BookView.FixedTop(
+                    ticksOf(s, topBids), lotsOf(s, topBids),
+                    ticksOf(s, topAsks), lotsOf(s, topAsks),
+                    s.sizeToLots(bids.totalQty()), s.sizeToLots(asks.totalQty()));
+        } catch (ArithmeticException e) {
+            return null;  // a level finer than the scale; copyTop reports it
+        }
+    }
 
-    public synchronized List<Level> getTopBids(int n) {
-        int size = Math.min(n, bids.size());
-        return new ArrayList<>(bids.subList(0, size));
+    private static long[] ticksOf(ProductScale s, List<Level> levels) {
+        long[] ticks = new long[levels.size()];
+        for (int rank = 0; rank < ticks.length; rank++) {
+            ticks[rank] = s.priceToTicks(levels.get(rank).px);
+        }
+        return ticks;
     }
 
-    public synchronized List<Level> getTopAsks(int n) {
-        int size = Math.min(n, asks.size());
-        return new ArrayList<>(asks.subList(0, size));
+    private static long[] lotsOf(ProductScale s, List<Level> levels) {
+        long[] lots = new long[levels.size()];
+        for (int rank = 0; rank < lots.length; rank++) {
+            lots[rank] = s.sizeToLots(levels.get(rank).qty);
+        }
+        return lots;
     }
 
-    public synchronized BigDecimal getTotalAsksQty() {
-        BigDecimal total = BigDecimal.ZERO;
-        for (Level ask : asks) {
-            total = total.add(ask.qty);
+    private long[] topTicks(ScaledBookSide side) {
+        long[] ticks = new long[Math.min(viewDepth, side.depth())];
+        for (int rank = 0; rank < ticks.length; rank++) {
+            ticks[rank] = side.ticksAt(rank);
         }
-        return total;
+        return ticks;
     }
 
-    public synchronized BigDecimal getTotalBidsQty() {
-        BigDecimal total = BigDecimal.ZERO;
-        for (Level bid : bids) {
-            total = total.add(bid.qty);
+    private long[] topLots(ScaledBookSide side) {
+        long[] lots = new long[Math.min(viewDepth, side.depth())];
+        for (int rank = 0; rank < lots.length; rank++) {
+            lots[rank] = side.lotsAt(rank);
         }
-        return total;
+        return lots;
+    }
+
+    /** Size on one side priced within bps of mid, e.g. bids at or above mid * (1 - bps / 10000). */
+    private BigDecimal qtyWithinBps(boolean bid, BigDecimal mid, int bps) {
+        return (bid ? bids : asks).qtyAtOrBetter(bandThreshold(bid, mid, bps));
+    }
+
+    private static BigDecimal bandThreshold(boolean bid, BigDecimal mid, int bps) {
+        return mid.multiply(BigDecimal.valueOf(bid ? 10_000L - bps : 10_000L + bps, 4));
     }
 
     /** e.g. mid = (bestBid + bestAsk)/2 */
-    public synchronized BigDecimal getMidPrice() {
-        if (bids.isEmpty() || asks.isEmpty()) {
+    private BigDecimal midPrice() {
+        if (bids.depth() == 0 || asks.depth() == 0) {
             return null;
         }
-        BigDecimal highestBid = bids.get(0).px;
-        BigDecimal lowestAsk = asks.get(0).px;
+        if (scale != null) {
+            // Half-up to a whole tick, matching the BigDecimal path.
+            long sum = fixed(true).ticksAt(0) + fixed(false).ticksAt(0);
+            return scale.toPrice((sum + 1) / 2);
+        }
+        BigDecimal highestBid = bids.best().px;
+        BigDecimal lowestAsk = asks.best().px;
         return highestBid.add(lowestAsk).divide(BigDecimal.valueOf(2), RoundingMode.HALF_UP);
     }
 
+    private ScaledBookSide fixed(boolean bid) {
+        return (ScaledBookSide) (bid ? bids : asks);
+    }
+
+    // -------------------- PUBLIC READ METHODS -------------------- //
+
+    /** Scale used in fixed-point mode, or null when the book holds BigDecimals. */
+    public ProductScale getScale() {
+        return scale;
+    }
+
+    /** Latest published state; wait-free and never null. */
+    public BookView getView() {
+        return view;
+    }
+
+    /**
+     * Calls listener with the latest view whenever a published view fires
+     * trigger, e.g. subscribe(BookTrigger.topOfBook(), executor, listener).
+     * Deliveries run on executor and are conflated per subscription. Pass
+     * Runnable::run to run the listener inline on the feed thread, or on
+     * Java 21+ a virtual-thread-per-task executor.
+     */
+    public synchronized BookSubscription subscribe(BookTrigger trigger, Executor executor, BookListener listener) {
+        BookSubscription subscription = new BookSubscription(this, trigger, executor, listener);
+        BookSubscription[] next = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        next[subscriptions.length] = subscription;
+        subscriptions = next;
+        return subscription;
+    }
+
+    synchronized void unsubscribe(BookSubscription subscription) {
+        BookSubscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                BookSubscription[] next = new BookSubscription[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                subscriptions = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reports the current levels of this fixed-point book to observer as a
+     * resync, then every level change on the feed thread. See LevelObserver.
+     */
+    public synchronized void addLevelObserver(LevelObserver observer) {
+        if (scale == null) {
+            throw new IllegalStateException("Level observers need a fixed-point book");
+        }
+        resync(observer);
+        LevelObserver[] next = Arrays.copyOf(levelObservers, levelObservers.length + 1);
+        next[levelObservers.length] = observer;
+        levelObservers = next;
+    }
+
+    public synchronized void removeLevelObserver(LevelObserver observer) {
+        LevelObserver[] current = levelObservers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == observer) {
+                LevelObserver[] next = new LevelObserver[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                levelObservers = next;
+                return;
+            }
+        }
+    }
+
+    /** Size resting at exactly px on one side, zero if there is no such level. */
+    public synchronized BigDecimal getQtyAt(boolean bid, BigDecimal px) {
+        return (bid ? bids : asks).qtyAt(px);
+    }
+
+    /**
+     * Lots at exactly pxTicks as the level observers last saw them, so
+     * including levels staged by a batch not yet published; fixed-point
+     * books only.
+     */
+    synchronized long observedLotsAt(boolean bid, long pxTicks) {
+        return fixed(bid).stagedLotsAtPrice(pxTicks);
+    }
+
+    /**
+     * Copies the best levels of both sides of the published view, as many as
+     * into holds up to the view depth, with its sequence, version and publish
+     * time. Wait-free: it takes no lock and allocates nothing, so it never
+     * stalls the feed thread or waits on an open batch. Needs a fixed-point
+     * book, or a BigDecimal book given a setTopOfBookScale.
+     */
+    public void copyTop(TopOfBookBuffer into) {
+        if (scale == null && topOfBookScale == null) {
+            throw new IllegalStateException("copyTop needs a fixed-point book or a top-of-book scale");
+        }
+        BookView current = view;
+        BookView.FixedTop top = current.getFixedTop();
+        if (top == null) {
+            throw new IllegalStateException("Book levels at version " + current.getVersion()
+                    + " are finer than the top-of-book scale");
+        }
+        into.bidCount = copySide(top.bidTicks, top.bidLots, into.bidPx, into.bidQty);
+        into.askCount = copySide(top.askTicks, top.askLots, into.askPx, into.askQty);
+        into.totalBidLots = top.totalBidLots;
+        into.totalAskLots = top.totalAskLots;
+        into.sequenceNum = current.getSequenceNum();
+        into.version = current.getVersion();
+        into.publishedNanos = current.getPublishedNanos();
+        into.provisional = current.isProvisional();
+    }
+
+    private static int copySide(long[] ticks, long[] lots, long[] px, long[] qty) {
+        int n = Math.min(px.length, ticks.length);
+        System.arraycopy(ticks, 0, px, 0, n);
+        System.arraycopy(lots, 0, qty, 0, n);
+        return n;
+    }
+
+    public List<Level> getTopBids(int n) {
+        if (n <= viewDepth) {
+            return topOf(view.getTopBids(), n);
+        }
+        synchronized (this) {
+            return bids.top(n);
+        }
+    }
+
+    public List<Level> getTopAsks(int n) {
+        if (n <= viewDepth) {
+            return topOf(view.getTopAsks(), n);
+        }
+        synchronized (this) {
+            return asks.top(n);
+        }
+    }
+
+    /**
+     * Lets copyTop work on a BigDecimal book: from the next update on, each
+     * published view also carries its top levels in scale's ticks and lots.
+     * Fixed-point books always do and ignore this; null turns it off.
+     */
+    public void setTopOfBookScale(ProductScale scale) {
+        topOfBookScale = scale;
+    }
+
+    /**
+     * Bands, in basis points from mid, whose depth every published view
+     * carries from the next update on; see BookView.getBidsQtyWithinBps.
+     */
+    public synchronized void setDepthBandsBps(int... bps) {
+        for (int b : bps) {
+            if (b < 0 || b > 10_000) {
+                throw new IllegalArgumentException("bps must be between 0 and 10000");
+            }
+        }
+        depthBandsBps = bps.clone();
+    }
+
+    /** Total size of the best n bid levels. */
+    public synchronized BigDecimal getTopBidsQty(int n) {
+        return bids.topQty(n);
+    }
+
+    /** Total size of the best n ask levels. */
+    public synchronized BigDecimal getTopAsksQty(int n) {
+        return asks.topQty(n);
+    }
+
+    /** (bids - asks) / (bids + asks) over the best n levels of each side; 0 for an empty book. */
+    public synchronized double getImbalance(int n) {
+        double bidsQty = bids.topQty(n).doubleValue();
+        double asksQty = asks.topQty(n).doubleValue();
+        double sum = bidsQty + asksQty;
+        return sum == 0.0 ? 0.0 : (bidsQty - asksQty) / sum;
+    }
+
+    /** Bid size priced within bps of mid, or null while there is no mid. */
+    public synchronized BigDecimal getBidsQtyWithinBps(int bps) {
+        BigDecimal mid = midPrice();
+        return mid == null ? null : qtyWithinBps(true, mid, bps);
+    }
+
+    /** Ask size priced within bps of mid, or null while there is no mid. */
+    public synchronized BigDecimal getAsksQtyWithinBps(int bps) {
+        BigDecimal mid = midPrice();
+        return mid == null ? null : qtyWithinBps(false, mid, bps);
+    }
+
+    /** Quote cost of buying qty by sweeping the asks, or null if they hold less than qty. */
+    public synchronized BigDecimal getCostToBuy(BigDecimal qty) {
+        return asks.costToFill(qty);
+    }
+
+    /** Quote proceeds of selling qty into the bids, or null if they hold less than qty. */
+    public synchronized BigDecimal getCostToSell(BigDecimal qty) {
+        return bids.costToFill(qty);
+    }
+
+    /** Average price of buying qty by sweeping the asks, or null if they hold less than qty. */
+    public BigDecimal getVwapToBuy(BigDecimal qty) {
+        return vwap(getCostToBuy(qty), qty);
+    }
+
+    /** Average price of selling qty into the bids, or null if they hold less than qty. */
+    public BigDecimal getVwapToSell(BigDecimal qty) {
+        return vwap(getCostToSell(qty), qty);
+    }
+
+    private static BigDecimal vwap(BigDecimal cost, BigDecimal qty) {
+        if (cost == null || qty.signum() <= 0) return null;
+        return cost.divide(qty, MathContext.DECIMAL64);
+    }
+
+    public BigDecimal getTotalAsksQty() {
+        return view.getTotalAsksQty();
+    }
+
+    public BigDecimal getTotalBidsQty() {
+        return view.getTotalBidsQty();
+    }
+
+    /** e.g. mid = (bestBid + bestAsk)/2 */
+    public BigDecimal getMidPrice() {
+        return view.getMidPrice();
+    }
+
+    private static List<Level> topOf(List<Level> levels, int n) {
+        return new ArrayList<>(levels.subList(0, Math.max(0, Math.min(n, levels.size()))));
+    }
+
 
+    /** One price level; immutable, so levels handed out never change under the caller. */
     public static class Level {
-        public BigDecimal px;
-        public BigDecimal qty;
-        public String side;
+        public final BigDecimal px;
+        public final BigDecimal qty;
+        public final String side;
 
         public Level(BigDecimal px, BigDecimal qty, String side) {
             this.px = px;
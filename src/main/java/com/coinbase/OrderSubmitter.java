@@ -0,0 +1,172 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends orders off the thread that decides on them.
+ *
+ * submit pairs a send call with the BookView the decision was made on, runs
+ * the call on executor and returns at once, so a slow REST round trip never
+ * holds up the next book-driven decision. Up to maxInFlight sends run at a
+ * time; beyond that submit fails fast instead of queueing behind them. Each
+ * result carries the decision's view, so captures record the book that
+ * motivated the order rather than whatever it became by the time the
+ * response arrived.
+ *
+ * The executor should have at least maxInFlight threads, or on Java 21+ be a
+ * virtual-thread-per-task executor.
+ */
+public class OrderSubmitter {
+
+    /** One completed send and the book it was decided on. */
+    public static final class Submission<T> {
+
+        private final BookView decidedOn;
+        private final T response;
+        private final long submittedNanos;
+        private final long completedNanos;
+
+        Submission(BookView decidedOn, T response, long submittedNanos, long completedNanos) {
+            this.decidedOn = decidedOn;
+            this.response = response;
+            this.submittedNanos = submittedNanos;
+            this.completedNanos = completedNanos;
+        }
+
+        public BookView getDecidedOn() {
+            return decidedOn;
+        }
+
+        public T getResponse() {
+            return response;
+        }
+
+        /** From submit to the response, in nanoseconds. */
+        public long getLatencyNanos() {
+            return completedNanos - submittedNanos;
+        }
+
+        /** Book versions published while the order was in flight. */
+        public long getViewsBehind(OrderBookProcessor book) {
+            return book.getView().getVersion() - decidedOn.getVersion();
+        }
+    }
+
+    private final Executor executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OrderSubmitter(Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Runs send on the executor, unless maxInFlight sends are already
+     * running, in which case the returned future fails with
+     * RejectedExecutionException.
+     */
+    public <T> CompletableFuture<Submission<T>> submit(BookView decidedOn, Callable<T> send) {
+        CompletableFuture<Submission<T>> result = new CompletableFuture<>();
+        if (!inFlight.tryAcquire()) {
+            rejected.incrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException(maxInFlight + " orders already in flight"));
+            return result;
+        }
+        long start = System.nanoTime();
+        submitted.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                T response;
+                try {
+                    response = send.call();
+                } catch (Throwable t) {
+                    inFlight.release();
+                    failed.incrementAndGet();
+                    result.completeExceptionally(t);
+                    return;
+                }
+                long end = System.nanoTime();
+                inFlight.release();
+                // Several sends finish concurrently; the histogram wants one writer at a time.
+                synchronized (latency) {
+                    latency.record(end - start);
+                }
+                completed.incrementAndGet();
+                result.complete(new Submission<>(decidedOn, response, start, end));
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            failed.incrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /** Submits turned away because maxInFlight sends were running. */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /** Submit-to-response time of completed sends. */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /** Publishes counts, in-flight and latency percentiles under group. */
+    public void bindTo(MetricsRegistry registry, String group) {
+        registry.gauge(group, "inFlight", this::getInFlight);
+        registry.gauge(group, "submitted", this::getSubmitted);
+        registry.gauge(group, "completed", this::getCompleted);
+        registry.gauge(group, "failed", this::getFailed);
+        registry.gauge(group, "rejected", this::getRejected);
+        registry.gauge(group, "latencyP50Millis", () -> latency.snapshot().getValueAtPercentile(50.0) / 1_000_000.0);
+        registry.gauge(group, "latencyP99Millis", () -> latency.snapshot().getValueAtPercentile(99.0) / 1_000_000.0);
+        registry.gauge(group, "latencyMaxMillis", () -> latency.snapshot().getMax() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,102 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.util.Arrays;
+
+/**
+ * Last write per price for one side, staged in primitives before it is
+ * applied to a ScaledBookSide. Open addressing with generation stamps, so
+ * clear is O(1) and nothing is allocated once the arrays have grown.
+ */
+final class PendingLevels {
+
+    private long[] pxs = new long[64];
+    private long[] qtys = new long[64];
+    private int size;
+
+    private int[] table = new int[128];    // entry index per slot
+    private int[] stamps = new int[128];   // slot is live iff stamps[slot] == generation
+    private int generation = 1;
+
+    void put(long px, long qty) {
+        int slot = find(px);
+        if (stamps[slot] == generation) {
+            qtys[table[slot]] = qty;
+            return;
+        }
+        if (size == pxs.length) {
+            pxs = Arrays.copyOf(pxs, size * 2);
+            qtys = Arrays.copyOf(qtys, size * 2);
+        }
+        pxs[size] = px;
+        qtys[size] = qty;
+        table[slot] = size;
+        stamps[slot] = generation;
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long pxAt(int i) {
+        return pxs[i];
+    }
+
+    long qtyAt(int i) {
+        return qtys[i];
+    }
+
+    boolean contains(long px) {
+        return stamps[find(px)] == generation;
+    }
+
+    /** Staged qty for px; only valid for a px that was put since the last clear. */
+    long qtyOf(long px) {
+        return qtys[table[find(px)]];
+    }
+
+    void clear() {
+        size = 0;
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    private int find(long px) {
+        int mask = table.length - 1;
+        int slot = (int) (px * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (stamps[slot] == generation && pxs[table[slot]] != px) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        stamps = new int[capacity];
+        generation = 1;
+        for (int i = 0; i < size; i++) {
+            int slot = find(pxs[i]);
+            table[slot] = i;
+            stamps[slot] = generation;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Per-product tick and lot scales used to hold prices and sizes as scaled longs.
+ * e.g. ETH-USD with priceDecimals=2, sizeDecimals=8: "2500.37" -> 250037 ticks.
+ */
+public final class ProductScale {
+
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1L;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10L;
+        }
+    }
+
+    private final int priceDecimals;
+    private final int sizeDecimals;
+
+    private ProductScale(int priceDecimals, int sizeDecimals) {
+        if (priceDecimals < 0 || priceDecimals >= POW10.length
+                || sizeDecimals < 0 || sizeDecimals >= POW10.length) {
+            throw new IllegalArgumentException("Decimals must be between 0 and " + (POW10.length - 1));
+        }
+        this.priceDecimals = priceDecimals;
+        this.sizeDecimals = sizeDecimals;
+    }
+
+    public static ProductScale of(int priceDecimals, int sizeDecimals) {
+        return new ProductScale(priceDecimals, sizeDecimals);
+    }
+
+    public int getPriceDecimals() {
+        return priceDecimals;
+    }
+
+    public int getSizeDecimals() {
+        return sizeDecimals;
+    }
+
+    public long parsePrice(CharSequence text) {
+        return parseScaled(text, 0, text.length(), priceDecimals);
+    }
+
+    public long parseSize(CharSequence text) {
+        return parseScaled(text, 0, text.length(), sizeDecimals);
+    }
+
+    public BigDecimal toPrice(long ticks) {
+        return BigDecimal.valueOf(ticks, priceDecimals);
+    }
+
+    public BigDecimal toSize(long lots) {
+        return BigDecimal.valueOf(lots, sizeDecimals);
+    }
+
+    public long priceToTicks(BigDecimal px) {
+        return px.setScale(priceDecimals, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public long sizeToLots(BigDecimal qty) {
+        return qty.setScale(sizeDecimals, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Parses a plain decimal such as "2500.370" into a long scaled by 10^decimals
+     * without allocating. Extra trailing zeros are accepted; any other digit past
+     * the scale, an exponent, or overflow throws NumberFormatException.
+     */
+    static long parseScaled(CharSequence text, int start, int end, int decimals) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = false;
+        int i = start;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long value = 0L;
+        int fraction = -1;
+        boolean sawDigit = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid character '" + c + "' in number");
+            }
+            sawDigit = true;
+            int d = c - '0';
+            if (fraction >= 0) {
+                if (fraction == decimals) {
+                    if (d != 0) {
+                        throw new NumberFormatException("More than " + decimals + " decimals");
+                    }
+                    continue;
+                }
+                fraction++;
+            }
+            if (value > (Long.MAX_VALUE - d) / 10L) {
+                throw new NumberFormatException("Scaled value overflows long");
+            }
+            value = value * 10L + d;
+        }
+        if (!sawDigit) {
+            throw new NumberFormatException("No digits in number");
+        }
+
+        int pad = decimals - Math.max(fraction, 0);
+        if (pad > 0) {
+            if (value > Long.MAX_VALUE / POW10[pad]) {
+                throw new NumberFormatException("Scaled value overflows long");
+            }
+            value *= POW10[pad];
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductScale[price=" + priceDecimals + ", size=" + sizeDecimals + "]";
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+
+/**
+ * Where one of our resting orders is estimated to sit in the queue at its
+ * price, as of the book event with getSequenceNum. Immutable.
+ */
+public final class QueueEstimate {
+
+    private final String clientOrderId;
+    private final boolean bid;
+    private final BigDecimal price;
+    private final BigDecimal remainingQty;
+    private final BigDecimal qtyAhead;
+    private final BigDecimal levelQty;
+    private final BigDecimal addedSince;
+    private final BigDecimal removedSince;
+    private final long sequenceNum;
+
+    QueueEstimate(String clientOrderId,
+                  boolean bid,
+                  BigDecimal price,
+                  BigDecimal remainingQty,
+                  BigDecimal qtyAhead,
+                  BigDecimal levelQty,
+                  BigDecimal addedSince,
+                  BigDecimal removedSince,
+                  long sequenceNum) {
+        this.clientOrderId = clientOrderId;
+        this.bid = bid;
+        this.price = price;
+        this.remainingQty = remainingQty;
+        this.qtyAhead = qtyAhead;
+        this.levelQty = levelQty;
+        this.addedSince = addedSince;
+        this.removedSince = removedSince;
+        this.sequenceNum = sequenceNum;
+    }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
+
+    public boolean isBid() {
+        return bid;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    /** Our size still resting, as last told to the estimator. */
+    public BigDecimal getRemainingQty() {
+        return remainingQty;
+    }
+
+    /** Estimated size queued in front of us that must trade or cancel before we fill. */
+    public BigDecimal getQtyAhead() {
+        return qtyAhead;
+    }
+
+    /** Whole size at the price as the feed last showed it; zero once the level is gone. */
+    public BigDecimal getLevelQty() {
+        return levelQty;
+    }
+
+    /** Size increases seen at the price since the order was tracked. */
+    public BigDecimal getAddedSince() {
+        return addedSince;
+    }
+
+    /** Size decreases seen at the price since the order was tracked. */
+    public BigDecimal getRemovedSince() {
+        return removedSince;
+    }
+
+    public long getSequenceNum() {
+        return sequenceNum;
+    }
+
+    public boolean isAtFront() {
+        return qtyAhead.signum() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return clientOrderId + " " + (bid ? "bid" : "offer") + " " + remainingQty.toPlainString()
+                + " @ " + price.toPlainString() + ": " + qtyAhead.toPlainString() + " ahead of "
+                + levelQty.toPlainString() + " (+" + addedSince.toPlainString()
+                + "/-" + removedSince.toPlainString() + " since placed)";
+    }
+}
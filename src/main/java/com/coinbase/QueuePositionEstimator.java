@@ -0,0 +1,314 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Estimates the queue ahead of our own resting limit orders from l2_data
+ * level changes alone.
+ *
+ * track takes the size already resting at the order's price as the queue
+ * ahead of it; call it just before submitting, so the order joins behind
+ * that size. From then on, as a LevelObserver of a fixed-point book:
+ * increases at the price queue behind us; decreases are spread over the
+ * other orders in proportion, so the part ahead of us shrinks by its share,
+ * and the queue ahead can never exceed the level less our own size. A level
+ * that disappears leaves nothing ahead. L2 cannot tell trades from
+ * cancels, so treat the figure as an estimate, not a fill prediction.
+ *
+ * Watched prices are kept per side in a sorted long[], so the feed thread
+ * pays one binary search per level change and nothing when no order is
+ * tracked. getEstimate is lock-free; listeners hear about every order
+ * whose level an event changed.
+ */
+public class QueuePositionEstimator implements LevelObserver {
+
+    /** Receives an order's new estimate whenever an event changes its level. */
+    @FunctionalInterface
+    public interface Listener {
+        void onEstimate(QueueEstimate estimate);
+    }
+
+    private final OrderBookProcessor book;
+    private final ProductScale scale;
+
+    private final Map<String, TrackedOrder> orders = new HashMap<>();
+    private final ConcurrentHashMap<String, QueueEstimate> estimates = new ConcurrentHashMap<>();
+    private final WatchedSide watchedBids = new WatchedSide();
+    private final WatchedSide watchedAsks = new WatchedSide();
+    private final List<TrackedOrder> changed = new ArrayList<>();
+    private boolean resyncing;
+    private long sequenceNum = -1L;
+
+    private volatile Delivery[] deliveries = new Delivery[0];
+
+    /** Follows book, which must be fixed-point, from now on. */
+    public QueuePositionEstimator(OrderBookProcessor book) {
+        this.book = book;
+        this.scale = book.getScale();
+        book.addLevelObserver(this);
+    }
+
+    /**
+     * Starts following an order of qty at px, taking the size at px now as
+     * the queue ahead of it.
+     * @return the starting estimate
+     */
+    public QueueEstimate track(String clientOrderId, boolean bid, BigDecimal px, BigDecimal qty) {
+        long pxTicks = scale.priceToTicks(px);
+        long qtyLots = scale.sizeToLots(qty);
+        // Book lock first, as on the feed thread, so the level cannot move under us.
+        synchronized (book) {
+            synchronized (this) {
+                if (orders.containsKey(clientOrderId)) {
+                    throw new IllegalArgumentException("Already tracking " + clientOrderId);
+                }
+                WatchedSide side = bid ? watchedBids : watchedAsks;
+                WatchedLevel level = side.find(pxTicks);
+                if (level == null) {
+                    level = new WatchedLevel(bid, pxTicks, book.observedLotsAt(bid, pxTicks));
+                    side.add(level);
+                }
+                TrackedOrder order = new TrackedOrder(clientOrderId, level, qtyLots, level.lots);
+                level.orders.add(order);
+                orders.put(clientOrderId, order);
+                QueueEstimate estimate = toEstimate(order);
+                estimates.put(clientOrderId, estimate);
+                return estimate;
+            }
+        }
+    }
+
+    /** Records a partial fill; the order keeps its place. */
+    public synchronized void updateRemaining(String clientOrderId, BigDecimal remainingQty) {
+        TrackedOrder order = orders.get(clientOrderId);
+        if (order == null) return;
+        order.ourLots = scale.sizeToLots(remainingQty);
+        publish(order);
+    }
+
+    /** Stops following an order, e.g. once it is filled, cancelled or rejected. */
+    public synchronized void untrack(String clientOrderId) {
+        TrackedOrder order = orders.remove(clientOrderId);
+        if (order == null) return;
+        estimates.remove(clientOrderId);
+        WatchedLevel level = order.level;
+        level.orders.remove(order);
+        if (level.orders.isEmpty()) {
+            (level.bid ? watchedBids : watchedAsks).remove(level.pxTicks);
+        }
+    }
+
+    /** Latest estimate for a tracked order, or null; never blocks. */
+    public QueueEstimate getEstimate(String clientOrderId) {
+        return estimates.get(clientOrderId);
+    }
+
+    public synchronized int getTrackedCount() {
+        return orders.size();
+    }
+
+    /**
+     * Calls listener on executor with each changed estimate. Pass
+     * Runnable::run to run it inline on the feed thread.
+     */
+    public synchronized void addListener(Executor executor, Listener listener) {
+        Delivery[] next = Arrays.copyOf(deliveries, deliveries.length + 1);
+        next[deliveries.length] = new Delivery(executor, listener);
+        deliveries = next;
+    }
+
+    // -------------------- LevelObserver, on the feed thread -------------------- //
+
+    @Override
+    public synchronized void onLevel(boolean bid, long pxTicks, long qtyLots) {
+        WatchedSide side = bid ? watchedBids : watchedAsks;
+        if (side.count == 0) return;
+        WatchedLevel level = side.find(pxTicks);
+        if (level != null) {
+            level.seen = true;
+            change(level, Math.max(0L, qtyLots));
+        }
+    }
+
+    @Override
+    public synchronized void onResync() {
+        resyncing = true;
+        watchedBids.clearSeen();
+        watchedAsks.clearSeen();
+    }
+
+    @Override
+    public synchronized void onEventEnd(long sequenceNum) {
+        this.sequenceNum = sequenceNum;
+        if (resyncing) {
+            resyncing = false;
+            watchedBids.zeroUnseen(this);
+            watchedAsks.zeroUnseen(this);
+        }
+        for (int i = 0; i < changed.size(); i++) {
+            TrackedOrder order = changed.get(i);
+            order.changed = false;
+            if (orders.get(order.clientOrderId) == order) {
+                publish(order);
+            }
+        }
+        changed.clear();
+    }
+
+    private void change(WatchedLevel level, long qtyLots) {
+        long old = level.lots;
+        if (qtyLots == old) return;
+        level.lots = qtyLots;
+        for (TrackedOrder order : level.orders) {
+            if (qtyLots > old) {
+                order.addedLots += qtyLots - old;
+            } else {
+                long removed = old - qtyLots;
+                order.removedLots += removed;
+                long others = Math.max(old - order.ourLots, order.aheadLots);
+                if (others > 0) {
+                    order.aheadLots -= Math.round((double) removed * order.aheadLots / others);
+                }
+                order.aheadLots = Math.max(0L, Math.min(order.aheadLots, qtyLots - order.ourLots));
+            }
+            if (!order.changed) {
+                order.changed = true;
+                changed.add(order);
+            }
+        }
+    }
+
+    private void publish(TrackedOrder order) {
+        QueueEstimate estimate = toEstimate(order);
+        estimates.put(order.clientOrderId, estimate);
+        for (Delivery delivery : deliveries) {
+            delivery.executor.execute(() -> delivery.listener.onEstimate(estimate));
+        }
+    }
+
+    private QueueEstimate toEstimate(TrackedOrder order) {
+        WatchedLevel level = order.level;
+        return new QueueEstimate(
+                order.clientOrderId,
+                level.bid,
+                scale.toPrice(level.pxTicks),
+                scale.toSize(order.ourLots),
+                scale.toSize(order.aheadLots),
+                scale.toSize(level.lots),
+                scale.toSize(order.addedLots),
+                scale.toSize(order.removedLots),
+                sequenceNum
+        );
+    }
+
+    private static final class Delivery {
+        final Executor executor;
+        final Listener listener;
+
+        Delivery(Executor executor, Listener listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+    }
+
+    private static final class TrackedOrder {
+        final String clientOrderId;
+        final WatchedLevel level;
+        long ourLots;
+        long aheadLots;
+        long addedLots;
+        long removedLots;
+        boolean changed;
+
+        TrackedOrder(String clientOrderId, WatchedLevel level, long ourLots, long aheadLots) {
+            this.clientOrderId = clientOrderId;
+            this.level = level;
+            this.ourLots = ourLots;
+            this.aheadLots = aheadLots;
+        }
+    }
+
+    /** One price with tracked orders, and its size as last reported. */
+    private static final class WatchedLevel {
+        final boolean bid;
+        final long pxTicks;
+        final List<TrackedOrder> orders = new ArrayList<>(1);
+        long lots;
+        boolean seen;
+
+        WatchedLevel(boolean bid, long pxTicks, long lots) {
+            this.bid = bid;
+            this.pxTicks = pxTicks;
+            this.lots = lots;
+        }
+    }
+
+    /** Watched levels of one side, sorted by price for binary search. */
+    private static final class WatchedSide {
+        long[] prices = new long[8];
+        WatchedLevel[] levels = new WatchedLevel[8];
+        int count;
+
+        WatchedLevel find(long pxTicks) {
+            int i = Arrays.binarySearch(prices, 0, count, pxTicks);
+            return i >= 0 ? levels[i] : null;
+        }
+
+        void add(WatchedLevel level) {
+            int at = -Arrays.binarySearch(prices, 0, count, level.pxTicks) - 1;
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                levels = Arrays.copyOf(levels, count * 2);
+            }
+            System.arraycopy(prices, at, prices, at + 1, count - at);
+            System.arraycopy(levels, at, levels, at + 1, count - at);
+            prices[at] = level.pxTicks;
+            levels[at] = level;
+            count++;
+        }
+
+        void remove(long pxTicks) {
+            int i = Arrays.binarySearch(prices, 0, count, pxTicks);
+            if (i < 0) return;
+            System.arraycopy(prices, i + 1, prices, i, count - i - 1);
+            System.arraycopy(levels, i + 1, levels, i, count - i - 1);
+            levels[--count] = null;
+        }
+
+        void clearSeen() {
+            for (int i = 0; i < count; i++) {
+                levels[i].seen = false;
+            }
+        }
+
+        /** A resync that did not repeat a level means the level is gone. */
+        void zeroUnseen(QueuePositionEstimator estimator) {
+            for (int i = 0; i < count; i++) {
+                if (!levels[i].seen) {
+                    estimator.change(levels[i], 0L);
+                }
+            }
+        }
+    }
+}
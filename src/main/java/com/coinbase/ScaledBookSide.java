@@ -0,0 +1,337 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-point side of the book backed by parallel primitive arrays.
+ *
+ * Levels are stored ascending by key, where key = px for bids and -px for asks,
+ * so the best level always sits at the tail. Lookups are a binary search and
+ * changes near the touch only shift the few levels above them.
+ *
+ * Alongside each level it keeps prefix sums from the worst level up, of size
+ * and of notional (ticks * lots, as a 128-bit hi/lo pair). A change at rank r
+ * touches only the r + 1 sums above it, the same levels a shift already
+ * moves, and top-N size, size within a price and cost to fill a size become
+ * a subtraction or a binary search.
+ */
+final class ScaledBookSide extends BookSide {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final boolean bid;
+    private final ProductScale scale;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] qtys = new long[INITIAL_CAPACITY];
+    private long[] cumLots = new long[INITIAL_CAPACITY];
+    private long[] cumNotionalHi = new long[INITIAL_CAPACITY];
+    private long[] cumNotionalLo = new long[INITIAL_CAPACITY];
+    private int count;
+    private long totalLots;
+
+    private final PendingLevels pending = new PendingLevels();
+    private boolean clearStaged;
+
+    ScaledBookSide(boolean bid, ProductScale scale) {
+        this.bid = bid;
+        this.scale = scale;
+    }
+
+    @Override
+    void clear() {
+        count = 0;
+        totalLots = 0L;
+        pending.clear();
+        clearStaged = false;
+    }
+
+    @Override
+    void discardStaged() {
+        pending.clear();
+        clearStaged = false;
+    }
+
+    @Override
+    void stageClear() {
+        pending.clear();
+        clearStaged = true;
+    }
+
+    @Override
+    void apply(OrderBookProcessor.Level lvl) {
+        apply(scale.priceToTicks(lvl.px), scale.sizeToLots(lvl.qty));
+    }
+
+    /** Sets the level at pxTicks; a non-positive qtyLots removes it. */
+    void apply(long pxTicks, long qtyLots) {
+        long key = bid ? pxTicks : -pxTicks;
+        int i = Arrays.binarySearch(keys, 0, count, key);
+        if (i >= 0) {
+            long old = qtys[i];
+            totalLots -= old;
+            if (qtyLots > 0) {
+                qtys[i] = qtyLots;
+                totalLots += qtyLots;
+                addToSums(i, pxTicks, qtyLots - old);
+            } else {
+                int moved = count - i - 1;
+                System.arraycopy(keys, i + 1, keys, i, moved);
+                System.arraycopy(qtys, i + 1, qtys, i, moved);
+                System.arraycopy(cumLots, i + 1, cumLots, i, moved);
+                System.arraycopy(cumNotionalHi, i + 1, cumNotionalHi, i, moved);
+                System.arraycopy(cumNotionalLo, i + 1, cumNotionalLo, i, moved);
+                count--;
+                addToSums(i, pxTicks, -old);
+            }
+        } else if (qtyLots > 0) {
+            int at = -i - 1;
+            if (count == keys.length) {
+                grow(count * 2);
+            }
+            int moved = count - at;
+            System.arraycopy(keys, at, keys, at + 1, moved);
+            System.arraycopy(qtys, at, qtys, at + 1, moved);
+            System.arraycopy(cumLots, at, cumLots, at + 1, moved);
+            System.arraycopy(cumNotionalHi, at, cumNotionalHi, at + 1, moved);
+            System.arraycopy(cumNotionalLo, at, cumNotionalLo, at + 1, moved);
+            keys[at] = key;
+            qtys[at] = qtyLots;
+            cumLots[at] = at > 0 ? cumLots[at - 1] : 0L;
+            cumNotionalHi[at] = at > 0 ? cumNotionalHi[at - 1] : 0L;
+            cumNotionalLo[at] = at > 0 ? cumNotionalLo[at - 1] : 0L;
+            count++;
+            totalLots += qtyLots;
+            addToSums(at, pxTicks, qtyLots);
+        }
+    }
+
+    /** Adds deltaLots at pxTicks to every prefix sum from index on. */
+    private void addToSums(int index, long pxTicks, long deltaLots) {
+        long hi = Math.multiplyHigh(pxTicks, deltaLots);
+        long lo = pxTicks * deltaLots;
+        for (int j = index; j < count; j++) {
+            cumLots[j] += deltaLots;
+            long sum = cumNotionalLo[j] + lo;
+            cumNotionalHi[j] += hi + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+            cumNotionalLo[j] = sum;
+        }
+    }
+
+    private void grow(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        qtys = Arrays.copyOf(qtys, capacity);
+        cumLots = Arrays.copyOf(cumLots, capacity);
+        cumNotionalHi = Arrays.copyOf(cumNotionalHi, capacity);
+        cumNotionalLo = Arrays.copyOf(cumNotionalLo, capacity);
+    }
+
+    @Override
+    void stage(OrderBookProcessor.Level lvl) {
+        stage(scale.priceToTicks(lvl.px), scale.sizeToLots(lvl.qty));
+    }
+
+    void stage(long pxTicks, long qtyLots) {
+        pending.put(pxTicks, qtyLots);
+    }
+
+    @Override
+    void flush() {
+        if (clearStaged) {
+            count = 0;
+            totalLots = 0L;
+            clearStaged = false;
+        }
+        if (count == 0) {
+            load();
+        } else {
+            for (int i = 0; i < pending.size(); i++) {
+                apply(pending.pxAt(i), pending.qtyAt(i));
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Builds an empty side from the staged levels with one sort, instead of
+     * inserting a best-first snapshot one level at a time at the far end.
+     */
+    private void load() {
+        int n = pending.size();
+        if (keys.length < n) {
+            grow(Integer.highestOneBit(n) << 1);
+        }
+        for (int i = 0; i < n; i++) {
+            keys[i] = bid ? pending.pxAt(i) : -pending.pxAt(i);
+        }
+        Arrays.sort(keys, 0, n);
+
+        int kept = 0;
+        long hi = 0L;
+        long lo = 0L;
+        for (int i = 0; i < n; i++) {
+            long px = bid ? keys[i] : -keys[i];
+            long lots = pending.qtyOf(px);
+            if (lots > 0) {
+                keys[kept] = keys[i];
+                qtys[kept] = lots;
+                totalLots += lots;
+                long add = px * lots;
+                lo += add;
+                hi += Math.multiplyHigh(px, lots) + (Long.compareUnsigned(lo, add) < 0 ? 1 : 0);
+                cumLots[kept] = totalLots;
+                cumNotionalHi[kept] = hi;
+                cumNotionalLo[kept] = lo;
+                kept++;
+            }
+        }
+        count = kept;
+    }
+
+    @Override
+    int depth() {
+        return count;
+    }
+
+    /** Price in ticks of the level at rank (0 = best). */
+    long ticksAt(int rank) {
+        long key = keys[count - 1 - rank];
+        return bid ? key : -key;
+    }
+
+    /** Size in lots of the level at rank (0 = best). */
+    long lotsAt(int rank) {
+        return qtys[count - 1 - rank];
+    }
+
+    long totalLots() {
+        return totalLots;
+    }
+
+    /** Lots over the best n levels. */
+    long topLots(int n) {
+        int from = count - Math.max(0, Math.min(n, count));
+        return totalLots - (from > 0 ? cumLots[from - 1] : 0L);
+    }
+
+    /** Lots at exactly pxTicks, zero if there is no such level. */
+    long lotsAtPrice(long pxTicks) {
+        int i = Arrays.binarySearch(keys, 0, count, bid ? pxTicks : -pxTicks);
+        return i >= 0 ? qtys[i] : 0L;
+    }
+
+    /** Lots at exactly pxTicks counting what is staged, i.e. as level observers have seen it. */
+    long stagedLotsAtPrice(long pxTicks) {
+        if (pending.contains(pxTicks)) {
+            return pending.qtyOf(pxTicks);
+        }
+        return clearStaged ? 0L : lotsAtPrice(pxTicks);
+    }
+
+    /** Lots at prices at least as good as pxTicks. */
+    long lotsAtOrBetter(long pxTicks) {
+        long key = bid ? pxTicks : -pxTicks;
+        int i = Arrays.binarySearch(keys, 0, count, key);
+        int from = i >= 0 ? i : -i - 1;
+        return totalLots - (from > 0 ? cumLots[from - 1] : 0L);
+    }
+
+    /**
+     * Sum of ticks * lots for taking lots from the best level down, or null if
+     * the side holds less. One binary search over the size prefix sums finds
+     * the last level touched.
+     */
+    BigInteger costToFillLots(long lots) {
+        if (lots <= 0) return BigInteger.ZERO;
+        if (lots > totalLots) return null;
+
+        // First index whose level and everything above it cover lots.
+        long below = totalLots - lots;
+        int f = Arrays.binarySearch(cumLots, 0, count, below);
+        int i = f >= 0 ? f + 1 : -f - 1;
+
+        long remaining = lots - (totalLots - cumLots[i]);
+        long px = bid ? keys[i] : -keys[i];
+        int top = count - 1;
+        return int128(cumNotionalHi[top], cumNotionalLo[top])
+                .subtract(int128(cumNotionalHi[i], cumNotionalLo[i]))
+                .add(BigInteger.valueOf(px).multiply(BigInteger.valueOf(remaining)));
+    }
+
+    private static BigInteger int128(long hi, long lo) {
+        return BigInteger.valueOf(hi).shiftLeft(64)
+                .add(BigInteger.valueOf(lo >>> 1).shiftLeft(1))
+                .add(BigInteger.valueOf(lo & 1L));
+    }
+
+    @Override
+    OrderBookProcessor.Level best() {
+        return count == 0 ? null : levelAt(0);
+    }
+
+    @Override
+    BigDecimal totalQty() {
+        return scale.toSize(totalLots);
+    }
+
+    @Override
+    List<OrderBookProcessor.Level> top(int n) {
+        int size = Math.max(0, Math.min(n, count));
+        List<OrderBookProcessor.Level> out = new ArrayList<>(size);
+        for (int rank = 0; rank < size; rank++) {
+            out.add(levelAt(rank));
+        }
+        return out;
+    }
+
+    @Override
+    BigDecimal topQty(int n) {
+        return scale.toSize(topLots(n));
+    }
+
+    @Override
+    BigDecimal qtyAt(BigDecimal px) {
+        return scale.toSize(lotsAtPrice(scale.priceToTicks(px)));
+    }
+
+    @Override
+    BigDecimal qtyAtOrBetter(BigDecimal px) {
+        // Round inwards so an off-tick bound only counts levels inside it.
+        BigDecimal onTick = px.setScale(scale.getPriceDecimals(), bid ? RoundingMode.CEILING : RoundingMode.FLOOR);
+        return scale.toSize(lotsAtOrBetter(onTick.unscaledValue().longValueExact()));
+    }
+
+    @Override
+    BigDecimal costToFill(BigDecimal qty) {
+        long lots = qty.setScale(scale.getSizeDecimals(), RoundingMode.CEILING).unscaledValue().longValueExact();
+        BigInteger cost = costToFillLots(lots);
+        return cost == null ? null : new BigDecimal(cost, scale.getPriceDecimals() + scale.getSizeDecimals());
+    }
+
+    private OrderBookProcessor.Level levelAt(int rank) {
+        return new OrderBookProcessor.Level(
+                scale.toPrice(ticksAt(rank)),
+                scale.toSize(lotsAt(rank)),
+                bid ? "bid" : "offer"
+        );
+    }
+}
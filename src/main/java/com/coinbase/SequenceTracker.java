@@ -0,0 +1,160 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+/**
+ * Validates the sequence_num of one product's l2_data stream.
+ *
+ * sequence_num counts the messages of a connection, not of a product, so
+ * when several products share a socket a product's numbers jump over the
+ * other products' messages. A tracker therefore only checks that its
+ * product's numbers increase; BookManager detects missed messages on the
+ * connection counter and calls onConnectionGap on every tracker. After a gap
+ * the product is out of sync and its updates are dropped until a fresh
+ * snapshot arrives. Written by the feed thread only; counters may be read
+ * from any thread.
+ */
+public final class SequenceTracker {
+
+    public enum Result {
+        /** In order (or unnumbered); apply it. */
+        APPLY,
+        /** Already seen; drop it. */
+        DUPLICATE,
+        /** Waiting for a snapshot after a gap; drop it. */
+        AWAITING_SNAPSHOT
+    }
+
+    private volatile long lastSequenceNum = -1L;
+    private long lastMessage = -1L;
+    private volatile boolean awaitingSnapshot = true;
+    private long resnapshotRequestedNanos = System.nanoTime();
+
+    private volatile long gaps;
+    private volatile long duplicates;
+    private volatile long applyFailures;
+    private volatile long snapshots;
+
+    /** A snapshot always resynchronises the stream. */
+    Result onSnapshot(long sequenceNum, long message) {
+        lastSequenceNum = sequenceNum;
+        lastMessage = message;
+        awaitingSnapshot = false;
+        snapshots++;
+        return Result.APPLY;
+    }
+
+    /**
+     * @param message ordinal of the message carrying the event, so several
+     *                events of one message may share a sequence_num
+     */
+    Result onUpdate(long sequenceNum, long message) {
+        if (awaitingSnapshot) {
+            return Result.AWAITING_SNAPSHOT;
+        }
+        if (sequenceNum < 0 || lastSequenceNum < 0
+                || (sequenceNum == lastSequenceNum && message == lastMessage)) {
+            return Result.APPLY;
+        }
+        if (sequenceNum <= lastSequenceNum) {
+            duplicates++;
+            return Result.DUPLICATE;
+        }
+        // A jump is the other products' messages; missed ones show up as a connection gap.
+        lastSequenceNum = sequenceNum;
+        lastMessage = message;
+        return Result.APPLY;
+    }
+
+    /**
+     * Drops sync because the connection missed messages, any of which may have
+     * been this product's; a snapshot is due immediately.
+     */
+    void onConnectionGap() {
+        gaps++;
+        awaitingSnapshot = true;
+        resnapshotRequestedNanos = Long.MIN_VALUE / 2;  // due immediately
+    }
+
+    /**
+     * Drops sync because an event passed by this tracker failed to apply, so
+     * the book no longer matches the stream; a snapshot is due immediately.
+     */
+    void onApplyFailure() {
+        applyFailures++;
+        awaitingSnapshot = true;
+        resnapshotRequestedNanos = Long.MIN_VALUE / 2;
+    }
+
+    /** Drops sync, e.g. when the connection is replaced and a new snapshot is due. */
+    void reset() {
+        awaitingSnapshot = true;
+        lastSequenceNum = -1L;
+        resnapshotRequestedNanos = System.nanoTime();
+    }
+
+    /**
+     * Continues from other's position, e.g. when other's connection and book
+     * take over; gap and duplicate counts stay this tracker's own.
+     */
+    void adopt(SequenceTracker other) {
+        lastSequenceNum = other.lastSequenceNum;
+        lastMessage = -1L;
+        resnapshotRequestedNanos = other.resnapshotRequestedNanos;
+        awaitingSnapshot = other.awaitingSnapshot;
+    }
+
+    /** Continues in sync from sequenceNum, e.g. after restoring a book recorded at that point. */
+    void resume(long sequenceNum) {
+        lastSequenceNum = sequenceNum;
+        lastMessage = -1L;
+        awaitingSnapshot = false;
+    }
+
+    /** True if no snapshot was requested within timeoutNanos; if so, records a request now. */
+    boolean claimResnapshot(long nowNanos, long timeoutNanos) {
+        if (nowNanos - resnapshotRequestedNanos < timeoutNanos) {
+            return false;
+        }
+        resnapshotRequestedNanos = nowNanos;
+        return true;
+    }
+
+    public boolean isInSync() {
+        return !awaitingSnapshot;
+    }
+
+    public long getLastSequenceNum() {
+        return lastSequenceNum;
+    }
+
+    public long getGapCount() {
+        return gaps;
+    }
+
+    public long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /** Events that were in sequence but failed to apply, e.g. a price finer than the book's scale. */
+    public long getApplyFailureCount() {
+        return applyFailures;
+    }
+
+    /** Snapshots applied, including the first one. */
+    public long getSnapshotCount() {
+        return snapshots;
+    }
+}
@@ -0,0 +1,210 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lock-free reader for a book published by SharedBookWriter, for use in any
+ * JVM on the same host. The file is mapped once; getVersion is a single
+ * volatile read for cheap change polling, and read copies the slot straight
+ * from the mapping into a caller-owned Snapshot, retrying if a write
+ * overlapped, without locking or allocating.
+ *
+ * Usage: SharedBookReader <file> prints the top of book whenever it changes.
+ */
+public class SharedBookReader implements Closeable {
+
+    private static final long POLL_MILLIS = 100L;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 1) {
+            System.err.println("Usage: SharedBookReader <file>");
+            System.exit(1);
+        }
+        try (SharedBookReader reader = new SharedBookReader(Path.of(args[0]))) {
+            ProductScale scale = reader.getScale();
+            Snapshot snapshot = new Snapshot(reader.getDepth());
+            long seen = 0L;
+            while (!Thread.currentThread().isInterrupted()) {
+                if (reader.getVersion() != seen && reader.read(snapshot)) {
+                    seen = snapshot.version;
+                    System.out.println(reader.getProductId() + " #" + snapshot.sequenceNum
+                            + " bid " + level(scale, snapshot.bidCount, snapshot.bidPx, snapshot.bidQty)
+                            + " ask " + level(scale, snapshot.askCount, snapshot.askPx, snapshot.askQty));
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+
+    private static String level(ProductScale scale, int count, long[] px, long[] qty) {
+        if (count == 0) return "-";
+        return scale.toSize(qty[0]).stripTrailingZeros().toPlainString()
+                + " @ " + scale.toPrice(px[0]).toPlainString();
+    }
+
+    public static final class Snapshot {
+        /** Even seqlock value this snapshot was read at; grows with every publish. */
+        public long version;
+        public long sequenceNum;
+        public long viewVersion;
+        public long publishedEpochNanos;
+        /** Mid in ticks, or SharedBookWriter.NO_MID while a side is empty. */
+        public long midTicks;
+        public long totalBidLots;
+        public long totalAskLots;
+        /** Levels in the publisher's whole book. */
+        public int bidDepth;
+        public int askDepth;
+        /** Levels valid in the arrays below, best first. */
+        public int bidCount;
+        public int askCount;
+        public final long[] bidPx;
+        public final long[] bidQty;
+        public final long[] askPx;
+        public final long[] askQty;
+
+        public Snapshot(int depth) {
+            bidPx = new long[depth];
+            bidQty = new long[depth];
+            askPx = new long[depth];
+            askQty = new long[depth];
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final String productId;
+    private final ProductScale scale;
+    private final int depth;
+
+    public SharedBookReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < SharedBookWriter.HEADER_BYTES) {
+                throw new IOException("Truncated shared book header in " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SharedBookWriter.HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if ((long) SharedBookWriter.LONGS.getAcquire(header, 0) != SharedBookWriter.MAGIC) {
+                throw new IOException("Not a shared book file, or not initialised yet: " + file);
+            }
+            if (header.getInt(8) != SharedBookWriter.VERSION) {
+                throw new IOException("Unsupported shared book layout in " + file);
+            }
+            this.depth = header.getInt(12);
+            this.scale = ProductScale.of(header.getInt(16), header.getInt(20));
+            this.productId = ascii(header, 24, SharedBookWriter.PRODUCT_ID_BYTES);
+            int bytes = SharedBookWriter.fileBytes(depth);
+            if (channel.size() < bytes) {
+                throw new IOException("Truncated shared book in " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public ProductScale getScale() {
+        return scale;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /** Current seqlock value: odd while a write is in progress, 0 before the first publish. */
+    public long getVersion() {
+        return (long) SharedBookWriter.LONGS.getAcquire(buffer, SharedBookWriter.SEQLOCK);
+    }
+
+    /**
+     * Copies a consistent state into into, spinning while the writer is
+     * mid-publish.
+     * @return false if nothing has been published yet
+     */
+    public boolean read(Snapshot into) {
+        if (into.bidPx.length < depth) {
+            throw new IllegalArgumentException("Snapshot depth " + into.bidPx.length + " < " + depth);
+        }
+        while (true) {
+            long before = getVersion();
+            if (before == 0L) return false;
+            if ((before & 1L) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            into.sequenceNum = buffer.getLong(SharedBookWriter.SEQUENCE_NUM);
+            into.viewVersion = buffer.getLong(SharedBookWriter.VIEW_VERSION);
+            into.publishedEpochNanos = buffer.getLong(SharedBookWriter.PUBLISHED_EPOCH_NANOS);
+            into.midTicks = buffer.getLong(SharedBookWriter.MID_TICKS);
+            into.totalBidLots = buffer.getLong(SharedBookWriter.TOTAL_BID_LOTS);
+            into.totalAskLots = buffer.getLong(SharedBookWriter.TOTAL_ASK_LOTS);
+            into.bidDepth = buffer.getInt(SharedBookWriter.BID_DEPTH);
+            into.askDepth = buffer.getInt(SharedBookWriter.ASK_DEPTH);
+            into.bidCount = buffer.getInt(SharedBookWriter.BID_COUNT);
+            into.askCount = buffer.getInt(SharedBookWriter.ASK_COUNT);
+            getLongs(0, into.bidPx);
+            getLongs(1, into.bidQty);
+            getLongs(2, into.askPx);
+            getLongs(3, into.askQty);
+
+            VarHandle.loadLoadFence();
+            if ((long) SharedBookWriter.LONGS.getOpaque(buffer, SharedBookWriter.SEQLOCK) == before) {
+                into.version = before;
+                return true;
+            }
+        }
+    }
+
+    /** The mapping stays valid until it is garbage collected; only the channel is closed here. */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void getLongs(int array, long[] into) {
+        int at = SharedBookWriter.LEVELS + array * depth * Long.BYTES;
+        for (int i = 0; i < depth; i++) {
+            into[i] = buffer.getLong(at + i * Long.BYTES);
+        }
+    }
+
+    static String ascii(ByteBuffer buffer, int offset, int width) {
+        byte[] bytes = new byte[width];
+        int len = 0;
+        while (len < width && buffer.get(offset + len) != 0) {
+            bytes[len] = buffer.get(offset + len);
+            len++;
+        }
+        return new String(bytes, 0, len, StandardCharsets.US_ASCII);
+    }
+}
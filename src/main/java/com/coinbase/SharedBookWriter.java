@@ -0,0 +1,198 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Publishes one product's top levels, mid and totals into a memory-mapped
+ * file for SharedBookReaders in other processes on the same host.
+ *
+ * The file holds a HEADER_BYTES header (magic, layout, scales, product)
+ * followed by a single seqlock-guarded slot: the seqlock word, then
+ * sequence_num, view version, publish time, mid, totals, depths and the top
+ * depth bid and ask prices and sizes as scaled longs. The seqlock word is odd
+ * while a write is in progress and advances by two per publish, so readers
+ * never lock and retry only when they overlap a write.
+ *
+ * Usable as a BookListener. Not thread-safe; one writer thread per file.
+ */
+public class SharedBookWriter implements BookListener, Closeable {
+
+    static final long MAGIC = 0x4F4253484D303031L;  // "OBSHM001"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int PRODUCT_ID_BYTES = 16;
+
+    // Slot offsets; the seqlock word starts the slot on its own cache line.
+    static final int SEQLOCK = HEADER_BYTES;
+    static final int SEQUENCE_NUM = SEQLOCK + 8;
+    static final int VIEW_VERSION = SEQLOCK + 16;
+    static final int PUBLISHED_EPOCH_NANOS = SEQLOCK + 24;
+    static final int MID_TICKS = SEQLOCK + 32;
+    static final int TOTAL_BID_LOTS = SEQLOCK + 40;
+    static final int TOTAL_ASK_LOTS = SEQLOCK + 48;
+    static final int BID_DEPTH = SEQLOCK + 56;
+    static final int ASK_DEPTH = SEQLOCK + 60;
+    static final int BID_COUNT = SEQLOCK + 64;
+    static final int ASK_COUNT = SEQLOCK + 68;
+    static final int LEVELS = SEQLOCK + 72;
+
+    /** MID_TICKS while either side is empty. */
+    public static final long NO_MID = Long.MIN_VALUE;
+
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ProductScale scale;
+    private final int depth;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long seqlock;
+
+    /**
+     * Maps file, creating it if needed. A file already laid out for the same
+     * product and depth keeps its seqlock count, so attached readers see the
+     * next publish as newer; otherwise the header is rewritten.
+     */
+    public SharedBookWriter(Path file, String productId, ProductScale scale, int depth) throws IOException {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be positive");
+        }
+        if (productId.length() > PRODUCT_ID_BYTES) {
+            throw new IllegalArgumentException("productId longer than " + PRODUCT_ID_BYTES + " characters");
+        }
+        this.scale = scale;
+        this.depth = depth;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes(depth));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (sameLayout(productId)) {
+                seqlock = ((long) LONGS.getVolatile(buffer, SEQLOCK) + 1) & ~1L;
+                LONGS.setRelease(buffer, SEQLOCK, seqlock);
+            } else {
+                writeHeader(productId);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int fileBytes(int depth) {
+        return LEVELS + 4 * depth * Long.BYTES;
+    }
+
+    @Override
+    public void onBookChange(BookView view) {
+        publish(view);
+    }
+
+    /** Writes view into the slot; levels beyond depth are left out and unused slots zeroed. */
+    public void publish(BookView view) {
+        MappedByteBuffer out = buffer;
+        if (out == null) {
+            throw new IllegalStateException("SharedBookWriter is closed");
+        }
+        LONGS.setOpaque(out, SEQLOCK, seqlock + 1);
+        VarHandle.storeStoreFence();
+
+        BigDecimal mid = view.getMidPrice();
+        out.putLong(SEQUENCE_NUM, view.getSequenceNum());
+        out.putLong(VIEW_VERSION, view.getVersion());
+        out.putLong(PUBLISHED_EPOCH_NANOS, System.currentTimeMillis() * 1_000_000L);
+        out.putLong(MID_TICKS, mid == null
+                ? NO_MID
+                : mid.setScale(scale.getPriceDecimals(), RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        out.putLong(TOTAL_BID_LOTS, scale.sizeToLots(view.getTotalBidsQty()));
+        out.putLong(TOTAL_ASK_LOTS, scale.sizeToLots(view.getTotalAsksQty()));
+        out.putInt(BID_DEPTH, view.getBidDepth());
+        out.putInt(ASK_DEPTH, view.getAskDepth());
+        out.putInt(BID_COUNT, putLevels(out, 0, view.getTopBids()));
+        out.putInt(ASK_COUNT, putLevels(out, 2, view.getTopAsks()));
+
+        seqlock += 2;
+        LONGS.setRelease(out, SEQLOCK, seqlock);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /** Publishes so far since the file was created. */
+    public long getPublishCount() {
+        return seqlock >>> 1;
+    }
+
+    /** Stops publishing; the file stays in place with the last state for readers. */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) return;
+        buffer.force();
+        buffer = null;
+        channel.close();
+    }
+
+    /** Prices go to array pxArray and sizes to pxArray + 1 of the four depth-long arrays. */
+    private int putLevels(MappedByteBuffer out, int pxArray, List<OrderBookProcessor.Level> levels) {
+        int n = Math.min(depth, levels.size());
+        int pxAt = LEVELS + pxArray * depth * Long.BYTES;
+        int qtyAt = pxAt + depth * Long.BYTES;
+        for (int i = 0; i < depth; i++) {
+            OrderBookProcessor.Level level = i < n ? levels.get(i) : null;
+            out.putLong(pxAt + i * Long.BYTES, level == null ? 0L : scale.priceToTicks(level.px));
+            out.putLong(qtyAt + i * Long.BYTES, level == null ? 0L : scale.sizeToLots(level.qty));
+        }
+        return n;
+    }
+
+    private boolean sameLayout(String productId) {
+        return buffer.getLong(0) == MAGIC
+                && buffer.getInt(8) == VERSION
+                && buffer.getInt(12) == depth
+                && buffer.getInt(16) == scale.getPriceDecimals()
+                && buffer.getInt(20) == scale.getSizeDecimals()
+                && productId.equals(SharedBookReader.ascii(buffer, 24, PRODUCT_ID_BYTES));
+    }
+
+    /** Magic goes in last, so a reader never trusts a half-written header. */
+    private void writeHeader(String productId) {
+        LONGS.setRelease(buffer, 0, 0L);
+        buffer.putInt(8, VERSION);
+        buffer.putInt(12, depth);
+        buffer.putInt(16, scale.getPriceDecimals());
+        buffer.putInt(20, scale.getSizeDecimals());
+        byte[] id = productId.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < PRODUCT_ID_BYTES; i++) {
+            buffer.put(24 + i, i < id.length ? id[i] : 0);
+        }
+        seqlock = 0L;
+        LONGS.setRelease(buffer, SEQLOCK, 0L);
+        LONGS.setRelease(buffer, 0, MAGIC);
+    }
+}
@@ -0,0 +1,206 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * An implied book for X-Z crossed from an X-Y book and a Y-Z book, e.g.
+ * ETH-USD through ETH-BTC and BTC-USD.
+ *
+ * An implied bid sells X on the first leg and the proceeds in Y on the
+ * second, so its price is the product of the two bids and its size is
+ * whatever both levels can absorb; asks mirror that. Walking both ladders
+ * best-first gives up to maxDepth levels, bids rounded down and asks up to
+ * the output tick and sizes down to the lot, so the implied book never
+ * looks better than the trades behind it. A leg quoted the other way
+ * round, e.g. BTC-ETH, is used through Leg.inverse.
+ *
+ * Inputs are read from their published views, so depth is bounded by the
+ * view depth of each input, and the book is only recomputed when one of
+ * those levels changes. Deliveries are conflated, and a recompute costs
+ * O(maxDepth) whatever the input book sizes. getBook offers the same read
+ * API as a real book; its sequence number counts recomputations.
+ */
+public class SyntheticBook {
+
+    private static final MathContext MC = MathContext.DECIMAL64;
+
+    /** One input book, used as quoted or inverted. */
+    public static final class Leg {
+        final OrderBookProcessor book;
+        final boolean inverted;
+
+        private Leg(OrderBookProcessor book, boolean inverted) {
+            this.book = book;
+            this.inverted = inverted;
+        }
+
+        /** A book quoted as X-Y used as X-Y. */
+        public static Leg of(OrderBookProcessor book) {
+            return new Leg(book, false);
+        }
+
+        /** A book quoted as Y-X used as X-Y: its asks become bids at 1/px and the other way round. */
+        public static Leg inverse(OrderBookProcessor book) {
+            return new Leg(book, true);
+        }
+
+        List<OrderBookProcessor.Level> bids(BookView view) {
+            return inverted ? invert(view.getTopAsks(), "bid") : view.getTopBids();
+        }
+
+        List<OrderBookProcessor.Level> asks(BookView view) {
+            return inverted ? invert(view.getTopBids(), "offer") : view.getTopAsks();
+        }
+
+        private static List<OrderBookProcessor.Level> invert(List<OrderBookProcessor.Level> levels, String side) {
+            List<OrderBookProcessor.Level> out = new ArrayList<>(levels.size());
+            for (OrderBookProcessor.Level lvl : levels) {
+                out.add(new OrderBookProcessor.Level(
+                        BigDecimal.ONE.divide(lvl.px, MC), lvl.px.multiply(lvl.qty), side));
+            }
+            return out;
+        }
+    }
+
+    private final Leg first;
+    private final Leg second;
+    private final ProductScale scale;
+    private final int maxDepth;
+    private final OrderBookProcessor book;
+    private final BookSubscription firstSubscription;
+    private final BookSubscription secondSubscription;
+    private long recomputations;
+
+    /**
+     * Crosses first (X-Y) with second (Y-Z) into an X-Z book of at most
+     * maxDepth levels per side at scale. Recomputes run on executor; pass
+     * Runnable::run to run them on the input feed threads.
+     */
+    public SyntheticBook(Leg first, Leg second, ProductScale scale, int maxDepth, Executor executor) {
+        if (scale == null) {
+            throw new IllegalArgumentException("A synthetic book needs a fixed-point scale");
+        }
+        this.first = first;
+        this.second = second;
+        this.scale = scale;
+        this.maxDepth = maxDepth;
+        this.book = new OrderBookProcessor(scale, maxDepth);
+        // Fires on any change to the levels a view carries, which is all a recompute reads.
+        BookTrigger trigger = BookTrigger.topLevels(Integer.MAX_VALUE);
+        this.firstSubscription = first.book.subscribe(trigger, executor, view -> recompute());
+        this.secondSubscription = second.book.subscribe(trigger, executor, view -> recompute());
+        recompute();
+    }
+
+    /** The implied book; read it like any other, but never apply messages to it. */
+    public OrderBookProcessor getBook() {
+        return book;
+    }
+
+    public synchronized long getRecomputations() {
+        return recomputations;
+    }
+
+    /** Stops following the inputs; the book keeps its last levels. */
+    public void cancel() {
+        firstSubscription.cancel();
+        secondSubscription.cancel();
+    }
+
+    synchronized void recompute() {
+        if (!ready(first.book) || !ready(second.book)) return;
+        BookView a = first.book.getView();
+        BookView b = second.book.getView();
+        List<OrderBookProcessor.Level> bids = cross(first.bids(a), second.bids(b), true);
+        List<OrderBookProcessor.Level> asks = cross(first.asks(a), second.asks(b), false);
+        // Implied from a book restored from a checkpoint, the result is provisional too.
+        book.restore(bids, asks, ++recomputations, a.isProvisional() || b.isProvisional());
+    }
+
+    private static boolean ready(OrderBookProcessor input) {
+        return input.hasSnapshot() || input.isProvisional();
+    }
+
+    /**
+     * Walks both ladders best-first. Each step takes the smaller of what is
+     * left at the current X-Y level, in X, and what the current Y-Z level can
+     * take, converted to X at the X-Y price, then moves past whichever ran out.
+     */
+    private List<OrderBookProcessor.Level> cross(List<OrderBookProcessor.Level> xy,
+                                                 List<OrderBookProcessor.Level> yz,
+                                                 boolean bid) {
+        List<OrderBookProcessor.Level> out = new ArrayList<>(maxDepth);
+        RoundingMode pxRounding = bid ? RoundingMode.FLOOR : RoundingMode.CEILING;
+        String side = bid ? "bid" : "offer";
+        BigDecimal leftX = null;
+        BigDecimal leftY = null;
+        BigDecimal px = null;
+        BigDecimal qty = BigDecimal.ZERO;
+        int i = 0;
+        int j = 0;
+        while (i < xy.size() && j < yz.size()) {
+            OrderBookProcessor.Level a = xy.get(i);
+            OrderBookProcessor.Level b = yz.get(j);
+            if (leftX == null) leftX = a.qty;
+            if (leftY == null) leftY = b.qty;
+
+            BigDecimal take;
+            BigDecimal costY = leftX.multiply(a.px);
+            if (costY.compareTo(leftY) <= 0) {
+                take = leftX;
+                leftY = leftY.subtract(costY);
+                leftX = null;
+                i++;
+                if (leftY.signum() == 0) {
+                    leftY = null;
+                    j++;
+                }
+            } else {
+                take = leftY.divide(a.px, MC);
+                leftX = leftX.subtract(take);
+                leftY = null;
+                j++;
+            }
+
+            BigDecimal stepPx = a.px.multiply(b.px).setScale(scale.getPriceDecimals(), pxRounding);
+            if (px != null && stepPx.compareTo(px) != 0) {
+                if (add(out, px, qty, side)) return out;
+                qty = BigDecimal.ZERO;
+            }
+            px = stepPx;
+            qty = qty.add(take);
+        }
+        if (px != null) {
+            add(out, px, qty, side);
+        }
+        return out;
+    }
+
+    /** Adds a level unless it rounds to nothing; true once out holds maxDepth levels. */
+    private boolean add(List<OrderBookProcessor.Level> out, BigDecimal px, BigDecimal qty, String side) {
+        BigDecimal lots = qty.setScale(scale.getSizeDecimals(), RoundingMode.FLOOR);
+        if (lots.signum() > 0) {
+            out.add(new OrderBookProcessor.Level(px, lots, side));
+        }
+        return out.size() >= maxDepth;
+    }
+}
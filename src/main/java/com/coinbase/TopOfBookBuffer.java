@@ -0,0 +1,58 @@
+// Copyright 2025-present Coinbase Global, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.coinbase;
+
+/**
+ * Caller-owned copy of the best levels of a book, filled by
+ * OrderBookProcessor.copyTop. Prices are in ticks and sizes in lots of the
+ * book's ProductScale, or of its top-of-book scale for a BigDecimal book;
+ * only the first bidCount / askCount entries are valid. Reusing one buffer
+ * per reader makes each read allocation-free, and nothing in it changes
+ * until the next copyTop into it.
+ *
+ * Not thread-safe; one reader thread per buffer.
+ */
+public final class TopOfBookBuffer {
+
+    public final long[] bidPx;
+    public final long[] bidQty;
+    public final long[] askPx;
+    public final long[] askQty;
+    public int bidCount;
+    public int askCount;
+    public long totalBidLots;
+    public long totalAskLots;
+    public long sequenceNum;
+    /** BookView version the copy matches. */
+    public long version;
+    /** System.nanoTime when that view was published. */
+    public long publishedNanos;
+    public boolean provisional;
+
+    /** Holds up to depth levels per side; copyTop fills no more than the book's view depth. */
+    public TopOfBookBuffer(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be positive");
+        }
+        this.bidPx = new long[depth];
+        this.bidQty = new long[depth];
+        this.askPx = new long[depth];
+        this.askQty = new long[depth];
+    }
+
+    public int depth() {
+        return bidPx.length;
+    }
+}